@@ -0,0 +1,140 @@
+package com.example.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Минимальный SMTP-сервер для нагрузочного теста: принимает любые письма без авторизации
+ * и TLS, отвечает на DATA через latency (имитация медленного релея) и сообщает каждого
+ * получателя принятого письма в listener. Каждое соединение - отдельный платформенный поток:
+ * Jakarta Mail пишет в сокет внутри synchronized и закрепляет виртуальный поток отправителя
+ * за несущим, так что сервер на виртуальных потоках в той же JVM мог бы остаться без несущих.
+ */
+public class FakeSmtpServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FakeSmtpServer.class);
+
+    private final ServerSocket serverSocket;
+    private final Duration latency;
+    private final Consumer<String> listener;
+    private final AtomicLong accepted = new AtomicLong();
+    private final Thread acceptor;
+
+    public FakeSmtpServer(Duration latency, Consumer<String> listener) throws IOException {
+        this.serverSocket = new ServerSocket(0, 512, InetAddress.getLoopbackAddress());
+        this.latency = latency;
+        this.listener = listener;
+        this.acceptor = Thread.ofPlatform().name("fake-smtp-acceptor").daemon().start(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getAcceptedMessages() {
+        return accepted.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        acceptor.interrupt();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread.ofPlatform().name("fake-smtp-session").daemon().start(() -> session(socket));
+            } catch (SocketException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Fake SMTP accept failed: {}", e.toString());
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            reply(out, "220 localhost fake SMTP ready");
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase(Locale.ROOT) : line.toUpperCase(Locale.ROOT);
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL" -> {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        recipients.add(address(line));
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        skipMessageBody(in);
+                        if (!latency.isZero()) {
+                            Thread.sleep(latency);
+                        }
+                        accepted.incrementAndGet();
+                        recipients.forEach(listener);
+                        recipients.clear();
+                        reply(out, "250 OK queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Fake SMTP session closed: {}", e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void skipMessageBody(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            // тело письма не нужно
+        }
+    }
+
+    // "RCPT TO:<user@example.com>" -> "user@example.com"
+    static String address(String command) {
+        int start = command.indexOf('<');
+        int end = command.indexOf('>', start + 1);
+        String address = start >= 0 && end > start
+                ? command.substring(start + 1, end)
+                : command.substring(command.indexOf(':') + 1).trim();
+        return address.toLowerCase(Locale.ROOT);
+    }
+
+    private static void reply(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write("\r\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Параметры прогона. Читаются из системных свойств loadtest.*, например
+ * -Dloadtest.duration=60s -Dloadtest.concurrency=64 -Dloadtest.mix=70:20:10 -Dloadtest.smtp-latency=50ms.
+ * Свойства loadtest.user-service.* и loadtest.notification-service.* передаются сервисам как есть
+ * (без префикса): -Dloadtest.notification-service.notification.kafka.mode=batch.
+ * -Dloadtest.stack=reactive запускает user-service в профиле reactive (WebFlux + R2DBC) для сравнения со servlet-стеком.
+ */
+public record LoadProfile(Duration duration,
+                          int concurrency,
+                          String stack,
+                          int createWeight,
+                          int readWeight,
+                          int deleteWeight,
+                          Duration smtpLatency,
+                          String notificationMode,
+                          int partitions,
+                          Duration drainTimeout,
+                          Map<String, String> userServiceProperties,
+                          Map<String, String> notificationServiceProperties) {
+
+    public static final String SERVLET_STACK = "servlet";
+    public static final String REACTIVE_STACK = "reactive";
+
+    public static LoadProfile fromSystemProperties() {
+        return from(System.getProperties());
+    }
+
+    static LoadProfile from(Properties properties) {
+        String[] mix = properties.getProperty("loadtest.mix", "70:20:10").split(":");
+        if (mix.length != 3) {
+            throw new IllegalArgumentException("loadtest.mix must be create:read:delete, got " + String.join(":", mix));
+        }
+        return new LoadProfile(
+                duration(properties, "loadtest.duration", "30s"),
+                Integer.parseInt(properties.getProperty("loadtest.concurrency", "32")),
+                stack(properties),
+                Integer.parseInt(mix[0].trim()),
+                Integer.parseInt(mix[1].trim()),
+                Integer.parseInt(mix[2].trim()),
+                duration(properties, "loadtest.smtp-latency", "20ms"),
+                properties.getProperty("loadtest.notification-mode", "async"),
+                Integer.parseInt(properties.getProperty("loadtest.partitions", "3")),
+                duration(properties, "loadtest.drain-timeout", "60s"),
+                withPrefix(properties, "loadtest.user-service."),
+                withPrefix(properties, "loadtest.notification-service."));
+    }
+
+    public int totalWeight() {
+        return createWeight + readWeight + deleteWeight;
+    }
+
+    public boolean reactive() {
+        return REACTIVE_STACK.equals(stack);
+    }
+
+    private static String stack(Properties properties) {
+        String stack = properties.getProperty("loadtest.stack", SERVLET_STACK).trim().toLowerCase(Locale.ROOT);
+        if (!stack.equals(SERVLET_STACK) && !stack.equals(REACTIVE_STACK)) {
+            throw new IllegalArgumentException("loadtest.stack must be servlet or reactive, got " + stack);
+        }
+        return stack;
+    }
+
+    private static Duration duration(Properties properties, String key, String defaultValue) {
+        return DurationStyle.detectAndParse(properties.getProperty(key, defaultValue));
+    }
+
+    private static Map<String, String> withPrefix(Properties properties, String prefix) {
+        Map<String, String> result = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(prefix)) {
+                result.put(name.substring(prefix.length()), properties.getProperty(name));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Итоги прогона: задержки HTTP-операций и сквозная задержка от ответа на POST /api/users
+ * до приёма письма SMTP-сервером. Значения в гистограммах - микросекунды.
+ */
+public class LoadReport {
+
+    public enum Operation { CREATE, READ, DELETE }
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Histogram eventToEmail = new ConcurrentHistogram(MAX_MICROS, 3);
+    private Duration elapsed = Duration.ZERO;
+    private long undelivered;
+    private long emailsAccepted;
+
+    public LoadReport() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(MAX_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void recordLatency(Operation operation, long nanos) {
+        latencies.get(operation).recordValue(Math.min(MAX_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    void recordError(Operation operation) {
+        errors.get(operation).increment();
+    }
+
+    void recordEventToEmail(long nanos) {
+        eventToEmail.recordValue(Math.min(MAX_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    void finish(Duration elapsed, long undelivered, long emailsAccepted) {
+        this.elapsed = elapsed;
+        this.undelivered = undelivered;
+        this.emailsAccepted = emailsAccepted;
+    }
+
+    public long getCount(Operation operation) {
+        return latencies.get(operation).getTotalCount();
+    }
+
+    public long getErrors(Operation operation) {
+        return errors.get(operation).sum();
+    }
+
+    public long getEmailsDelivered() {
+        return eventToEmail.getTotalCount();
+    }
+
+    public long getUndelivered() {
+        return undelivered;
+    }
+
+    public double getThroughput() {
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            total += getCount(operation);
+        }
+        return total / Math.max(0.001, elapsed.toMillis() / 1000.0);
+    }
+
+    @Override
+    public String toString() {
+        double seconds = Math.max(0.001, elapsed.toMillis() / 1000.0);
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "Load test: %.1f s, %.1f req/s total%n", seconds, getThroughput()));
+        report.append(String.format(Locale.ROOT, "%-14s %9s %7s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            report.append(row(operation.name().toLowerCase(Locale.ROOT), histogram, getErrors(operation),
+                    histogram.getTotalCount() / seconds));
+        }
+        report.append(row("event->email", eventToEmail, undelivered, eventToEmail.getTotalCount() / seconds));
+        report.append(String.format(Locale.ROOT, "SMTP messages accepted: %d, created users without email: %d%n",
+                emailsAccepted, undelivered));
+        return report.toString();
+    }
+
+    private static String row(String name, Histogram histogram, long errors, double rate) {
+        return String.format(Locale.ROOT, "%-14s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name, histogram.getTotalCount(), errors, rate,
+                millis(histogram, 50), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,358 @@
+package com.example.loadtest;
+
+import com.example.loadtest.LoadReport.Operation;
+import com.example.notificationservice.NotificationServiceApplication;
+import com.example.user_service.UserServiceApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaZKBroker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сквозной нагрузочный прогон в одной JVM: user-service на H2, notification-service
+ * на встроенной Kafka и {@link FakeSmtpServer} с заданной задержкой. Клиенты - concurrency
+ * платформенных потоков (виртуальные делили бы несущие с отправкой писем и искажали замер),
+ * гоняют смесь create/read/delete по HTTP; письма сопоставляются с созданными пользователями по адресу.
+ * С -Dloadtest.stack=reactive user-service поднимается в профиле reactive на R2DBC поверх той же H2.
+ * <p>
+ * Запуск: mvn test -pl load-test -Dsurefire.excludedGroups= -Dgroups=load (параметры - {@link LoadProfile}).
+ */
+public class LoadTestHarness implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestHarness.class);
+    private static final String USER_EVENTS_TOPIC = "user-events";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadProfile profile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    // Адрес созданного пользователя -> момент ответа на POST; запись удаляется при приёме первого письма
+    private final Map<String, Long> awaitingEmail = new ConcurrentHashMap<>();
+    // Письма, пришедшие раньше ответа на POST: реактивный стек отправляет событие до ответа, без outbox
+    private final Set<String> emailedBeforeResponse = new HashSet<>();
+    private final Object emailLock = new Object();
+    private final LiveUsers liveUsers = new LiveUsers();
+    private final AtomicLong sequence = new AtomicLong();
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    private EmbeddedKafkaBroker broker;
+    private FakeSmtpServer smtp;
+    private ConfigurableApplicationContext notificationService;
+    private ConfigurableApplicationContext userService;
+    private LoadReport report;
+    private URI usersUri;
+
+    public LoadTestHarness(LoadProfile profile) {
+        this.profile = profile;
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (LoadTestHarness harness = new LoadTestHarness(LoadProfile.fromSystemProperties())) {
+            harness.start();
+            System.out.println(harness.run());
+        }
+    }
+
+    public void start() throws IOException {
+        broker = new EmbeddedKafkaZKBroker(1, false, profile.partitions(), USER_EVENTS_TOPIC);
+        broker.afterPropertiesSet();
+        smtp = new FakeSmtpServer(profile.smtpLatency(), this::onEmail);
+
+        Map<String, String> notificationOverrides = new LinkedHashMap<>();
+        notificationOverrides.put("spring.kafka.bootstrap-servers", broker.getBrokersAsString());
+        notificationOverrides.put("notification.kafka.mode", profile.notificationMode());
+        notificationOverrides.put("notification.kafka.concurrency", String.valueOf(profile.partitions()));
+        notificationOverrides.put("spring.mail.host", "127.0.0.1");
+        notificationOverrides.put("spring.mail.port", String.valueOf(smtp.getPort()));
+        notificationOverrides.put("spring.mail.username", "");
+        notificationOverrides.put("spring.mail.password", "");
+        notificationOverrides.put("spring.mail.properties.mail.smtp.auth", "false");
+        notificationOverrides.put("spring.mail.properties.mail.smtp.starttls.enable", "false");
+        notificationOverrides.put("spring.autoconfigure.exclude",
+                "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,"
+                        + "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration,"
+                        // r2dbc-h2 на classpath стенда нужен только user-service в профиле reactive
+                        + "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration,"
+                        + "org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration,"
+                        + "org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration");
+        notificationOverrides.putAll(profile.notificationServiceProperties());
+        notificationService = startService(NotificationServiceApplication.class, "notification-service",
+                null, notificationOverrides);
+
+        Map<String, String> userOverrides = new LinkedHashMap<>();
+        userOverrides.put("spring.kafka.bootstrap-servers", broker.getBrokersAsString());
+        if (profile.reactive()) {
+            // Профиль reactive: WebFlux на Netty и R2DBC; схему создаёт db/reactive-schema.sql
+            userOverrides.put("spring.profiles.active", LoadProfile.REACTIVE_STACK);
+            userOverrides.put("spring.r2dbc.url", "r2dbc:h2:mem:///loadtest-" + runId + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+            userOverrides.put("spring.r2dbc.username", "sa");
+            userOverrides.put("spring.r2dbc.password", "");
+        } else {
+            userOverrides.put("spring.datasource.url", "jdbc:h2:mem:loadtest-" + runId + ";DB_CLOSE_DELAY=-1");
+            userOverrides.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            userOverrides.put("spring.datasource.username", "sa");
+            userOverrides.put("spring.datasource.password", "");
+            userOverrides.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+            userOverrides.put("spring.jpa.show-sql", "false");
+            userOverrides.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        }
+        userOverrides.putAll(profile.userServiceProperties());
+        userService = startService(UserServiceApplication.class, "user-service",
+                profile.reactive() ? LoadProfile.REACTIVE_STACK : null, userOverrides);
+
+        int userPort = ((WebServerApplicationContext) userService).getWebServer().getPort();
+        usersUri = URI.create("http://127.0.0.1:" + userPort + "/api/users");
+        log.info("Load test stand is up: users at {} ({} stack), SMTP on {}, Kafka at {}",
+                usersUri, profile.stack(), smtp.getPort(), broker.getBrokersAsString());
+    }
+
+    public LoadReport run() throws InterruptedException {
+        report = new LoadReport();
+        long started = System.nanoTime();
+        long deadline = started + profile.duration().toNanos();
+        try (ExecutorService clients = Executors.newFixedThreadPool(profile.concurrency())) {
+            for (int i = 0; i < profile.concurrency(); i++) {
+                clients.submit(() -> clientLoop(deadline));
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        // Ждём письма по уже созданным пользователям: часть событий ещё в outbox, Kafka и у SMTP
+        long drainDeadline = System.nanoTime() + profile.drainTimeout().toNanos();
+        while (!awaitingEmail.isEmpty() && System.nanoTime() < drainDeadline) {
+            Thread.sleep(100);
+        }
+        report.finish(elapsed, awaitingEmail.size(), smtp.getAcceptedMessages());
+        log.info("\n{}", report);
+        return report;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (userService != null) {
+            userService.close();
+        }
+        if (notificationService != null) {
+            notificationService.close();
+        }
+        if (smtp != null) {
+            smtp.close();
+        }
+        if (broker != null) {
+            broker.destroy();
+        }
+    }
+
+    private void clientLoop(long deadline) {
+        while (System.nanoTime() < deadline) {
+            int pick = ThreadLocalRandom.current().nextInt(profile.totalWeight());
+            if (pick < profile.createWeight()) {
+                create();
+            } else if (pick < profile.createWeight() + profile.readWeight()) {
+                read();
+            } else {
+                delete();
+            }
+        }
+    }
+
+    private void create() {
+        long n = sequence.incrementAndGet();
+        String email = "load-" + runId + "-" + n + "@example.com";
+        String body = "{\"name\":\"Load User " + n + "\",\"email\":\"" + email + "\",\"age\":30}";
+        HttpRequest request = HttpRequest.newBuilder(usersUri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        long start = System.nanoTime();
+        HttpResponse<String> response = send(Operation.CREATE, request);
+        if (response == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        report.recordLatency(Operation.CREATE, now - start);
+        if (response.statusCode() != 201) {
+            report.recordError(Operation.CREATE);
+            return;
+        }
+        synchronized (emailLock) {
+            if (emailedBeforeResponse.remove(email)) {
+                report.recordEventToEmail(0);
+            } else {
+                awaitingEmail.put(email, now);
+            }
+        }
+        Long id = userId(response.body());
+        if (id != null) {
+            liveUsers.add(id);
+        }
+    }
+
+    private void read() {
+        Long id = liveUsers.random();
+        if (id == null) {
+            create();
+            return;
+        }
+        timed(Operation.READ, HttpRequest.newBuilder(usersUri.resolve("/api/users/" + id)).timeout(REQUEST_TIMEOUT).GET().build(), 200);
+    }
+
+    private void delete() {
+        Long id = liveUsers.removeRandom();
+        if (id == null) {
+            create();
+            return;
+        }
+        timed(Operation.DELETE, HttpRequest.newBuilder(usersUri.resolve("/api/users/" + id)).timeout(REQUEST_TIMEOUT).DELETE().build(), 204);
+    }
+
+    private void timed(Operation operation, HttpRequest request, int expectedStatus) {
+        long start = System.nanoTime();
+        HttpResponse<String> response = send(operation, request);
+        if (response == null) {
+            return;
+        }
+        report.recordLatency(operation, System.nanoTime() - start);
+        // Чтение только что удалённого другим клиентом пользователя - не ошибка сервиса
+        if (response.statusCode() != expectedStatus
+                && !(operation == Operation.READ && response.statusCode() == 400)) {
+            report.recordError(operation);
+        }
+    }
+
+    private HttpResponse<String> send(Operation operation, HttpRequest request) {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            report.recordError(operation);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void onEmail(String recipient) {
+        if (report == null) {
+            return;
+        }
+        synchronized (emailLock) {
+            Long created = awaitingEmail.remove(recipient);
+            if (created != null) {
+                report.recordEventToEmail(System.nanoTime() - created);
+            } else {
+                emailedBeforeResponse.add(recipient);
+            }
+        }
+    }
+
+    private Long userId(String body) {
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            JsonNode id = json.has("id") ? json.get("id") : json.path("content").get("id");
+            return id == null || id.isNull() ? null : id.asLong();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static ConfigurableApplicationContext startService(Class<?> application, String module, String springProfile,
+                                                               Map<String, String> overrides) throws IOException {
+        Properties defaults = serviceProperties(module, "application.properties");
+        if (springProfile != null) {
+            // Профильный файл поверх основного, как при обычном запуске с этим профилем
+            defaults.putAll(serviceProperties(module, "application-" + springProfile + ".properties"));
+        }
+        SpringApplication app = new SpringApplication(application);
+        app.setDefaultProperties(defaults);
+        List<String> args = new ArrayList<>();
+        // application.properties обоих сервисов лежат в корне classpath под одним именем,
+        // поэтому загружаем нужный файл сами, а стандартный поиск отключаем
+        args.add("--spring.config.name=" + module + "-load-test");
+        args.add("--spring.application.name=" + module);
+        args.add("--server.port=0");
+        args.add("--logging.level.root=WARN");
+        args.add("--logging.level.com.example.loadtest=INFO");
+        args.add("--logging.level.com.example=WARN");
+        overrides.forEach((key, value) -> args.add("--" + key + "=" + value));
+        return app.run(args.toArray(new String[0]));
+    }
+
+    private static Properties serviceProperties(String module, String resource) throws IOException {
+        Enumeration<URL> candidates = LoadTestHarness.class.getClassLoader().getResources(resource);
+        while (candidates.hasMoreElements()) {
+            URL url = candidates.nextElement();
+            String location = url.toString().replace('\\', '/');
+            if (location.contains("/" + module + "/") || location.contains("/" + module + "-")) {
+                Properties properties = new Properties();
+                try (InputStream in = url.openStream()) {
+                    properties.load(in);
+                }
+                return properties;
+            }
+        }
+        throw new IllegalStateException(resource + " of " + module + " not found on the classpath");
+    }
+
+    /**
+     * Живые пользователи для чтения и удаления; удаление - перестановкой с последним, O(1).
+     */
+    private static final class LiveUsers {
+        private final List<Long> ids = new ArrayList<>();
+
+        synchronized void add(Long id) {
+            ids.add(id);
+        }
+
+        synchronized Long random() {
+            return ids.isEmpty() ? null : ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        }
+
+        synchronized Long removeRandom() {
+            if (ids.isEmpty()) {
+                return null;
+            }
+            int index = ThreadLocalRandom.current().nextInt(ids.size());
+            Long id = ids.get(index);
+            Long last = ids.remove(ids.size() - 1);
+            if (index < ids.size()) {
+                ids.set(index, last);
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FakeSmtpServerTest {
+
+    @Test
+    void send_ShouldReportRecipientsAfterLatency() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        try (FakeSmtpServer smtp = new FakeSmtpServer(Duration.ofMillis(200), received::add)) {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("127.0.0.1");
+            sender.setPort(smtp.getPort());
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom("noreply@example.com");
+            message.setTo("First@Example.com", "second@example.com");
+            message.setSubject("Тема");
+            message.setText("Строка\n.\nс точкой");
+
+            long start = System.nanoTime();
+            sender.send(message);
+
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+            assertThat(received).containsExactly("first@example.com", "second@example.com");
+            assertThat(smtp.getAcceptedMessages()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void address_ShouldStripBracketsAndParameters() {
+        assertThat(FakeSmtpServer.address("RCPT TO:<User@Example.com> NOTIFY=NEVER")).isEqualTo("user@example.com");
+        assertThat(FakeSmtpServer.address("RCPT TO: user@example.com")).isEqualTo("user@example.com");
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Полный нагрузочный прогон. Запуск:
+ * mvn test -pl load-test -Dsurefire.excludedGroups= -Dgroups=load -Dloadtest.duration=60s -Dloadtest.concurrency=64
+ */
+@Tag("load")
+class LoadTestHarnessTest {
+
+    @Test
+    void fullPath() throws Exception {
+        try (LoadTestHarness harness = new LoadTestHarness(LoadProfile.fromSystemProperties())) {
+            harness.start();
+            LoadReport report = harness.run();
+
+            assertThat(report.getCount(LoadReport.Operation.CREATE)).isPositive();
+            assertThat(report.getEmailsDelivered()).isPositive();
+        }
+    }
+}
@@ -1,13 +1,35 @@
 package com.example.notificationservice.config;
 
+import com.example.events.UserEvent;
+import com.example.events.UserEventDeserializer;
+import com.example.events.UserEventSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -15,17 +37,69 @@ import java.util.Map;
 @Configuration
 public class KafkaConfig {
 
+    public static final String USER_EVENTS_TOPIC = "user-events";
+    // Общий DLT всех режимов; в режиме record сюда же ведёт цепочка retry-топиков
+    public static final String USER_EVENTS_DLT = "user-events-dlt";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.consumer.auto-offset-reset:earliest}")
+    private String autoOffsetReset;
+
+    // Число потоков-консьюмеров пакетного и асинхронного режимов; имеет смысл ставить равным числу партиций user-events
+    @Value("${notification.kafka.concurrency:3}")
+    private int concurrency;
+
+    @Value("${notification.kafka.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${notification.kafka.fetch-min-bytes:1}")
+    private int fetchMinBytes;
+
+    @Value("${notification.kafka.fetch-max-wait-ms:500}")
+    private int fetchMaxWaitMs;
+
+    @Value("${notification.kafka.retry.attempts:4}")
+    private int retryAttempts;
+
+    @Value("${notification.kafka.retry.initial-delay-ms:1000}")
+    private long retryInitialDelayMs;
+
+    @Value("${notification.kafka.retry.multiplier:5}")
+    private double retryMultiplier;
+
+    @Value("${notification.kafka.retry.max-delay-ms:60000}")
+    private long retryMaxDelayMs;
+
+    public KafkaConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Метрики клиентов Kafka (kafka.consumer.*, kafka.producer.*) публикуются в MeterRegistry,
+    // в том числе отставание консьюмера records-lag-max по каждому потоку
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
-        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "notification-group");
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        props.put(JsonDeserializer.TYPE_MAPPINGS, "userEvent:com.example.notificationservice.event.UserEvent");
+        // Нечитаемая запись (битая, старый JSON-формат) не должна ронять каждый poll():
+        // ErrorHandlingDeserializer отдаёт вместо неё null с исключением в заголовке,
+        // и обработчик ошибок переносит её в DLT как есть, в исходных байтах
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, UserEventDeserializer.class);
 
-        return new DefaultKafkaConsumerFactory<>(props);
+        DefaultKafkaConsumerFactory<String, Object> factory = new DefaultKafkaConsumerFactory<>(props);
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
@@ -35,4 +109,92 @@ public class KafkaConfig {
         factory.setConsumerFactory(consumerFactory());
         return factory;
     }
-}
\ No newline at end of file
+
+    // Пакетный режим: слушатель получает весь результат poll() списком,
+    // смещения коммитятся один раз после обработки всей пачки
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        // Retry-топики не поддерживают пакетных слушателей: запись, на которой упала пачка,
+        // повторяется на месте с той же экспоненциальной задержкой и затем уходит в DLT
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(retryAttempts - 1);
+        backOff.setInitialInterval(retryInitialDelayMs);
+        backOff.setMultiplier(retryMultiplier);
+        backOff.setMaxInterval(retryMaxDelayMs);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetterPublishingRecoverer(), backOff));
+        return factory;
+    }
+
+    // Асинхронный режим: запись подтверждается из потока отправки письма. С asyncAcks
+    // контейнер коммитит только непрерывный префикс подтверждённых смещений и держит
+    // консьюмер на паузе, пока не подтверждены все записи предыдущего poll()
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> asyncKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        // Сюда доходят только записи, которые не удалось десериализовать: ошибки отправки
+        // письма слушатель обрабатывает сам
+        factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetterPublishingRecoverer(), new FixedBackOff(0, 0)));
+        return factory;
+    }
+
+    // Публикует retry-записи, записи в DLT и повторно запущенные из DLT события
+    @Bean
+    public ProducerFactory<String, UserEvent> producerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+
+        // Записи, которые не удалось десериализовать, публикуются в DLT исходными байтами
+        @SuppressWarnings("unchecked")
+        Serializer<UserEvent> values = (Serializer<UserEvent>) (Serializer<?>) new DelegatingByTypeSerializer(
+                Map.<Class<?>, Serializer<?>>of(
+                        UserEvent.class, new UserEventSerializer(),
+                        byte[].class, new ByteArraySerializer()));
+        DefaultKafkaProducerFactory<String, UserEvent> factory =
+                new DefaultKafkaProducerFactory<>(props, new StringSerializer(), values);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, UserEvent> kafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+
+    // Кладёт запись в DLT из пакетного и асинхронного режимов. Заголовки те же, что у
+    // цепочки retry-топиков: kafka_exception-* (причина) и kafka_original-* (откуда пришла запись)
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer() {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate(),
+                (record, exception) -> new TopicPartition(USER_EVENTS_DLT, -1));
+        recoverer.setHeaderNamesSupplier(() -> DeadLetterPublishingRecoverer.HeaderNames.Builder
+                .original()
+                .offsetHeader(KafkaHeaders.ORIGINAL_OFFSET)
+                .timestampHeader(KafkaHeaders.ORIGINAL_TIMESTAMP)
+                .timestampTypeHeader(KafkaHeaders.ORIGINAL_TIMESTAMP_TYPE)
+                .topicHeader(KafkaHeaders.ORIGINAL_TOPIC)
+                .partitionHeader(KafkaHeaders.ORIGINAL_PARTITION)
+                .consumerGroupHeader(KafkaHeaders.ORIGINAL_CONSUMER_GROUP)
+                .exception()
+                .keyExceptionFqcn(KafkaHeaders.KEY_EXCEPTION_FQCN)
+                .exceptionFqcn(KafkaHeaders.EXCEPTION_FQCN)
+                .exceptionCauseFqcn(KafkaHeaders.EXCEPTION_CAUSE_FQCN)
+                .keyExceptionMessage(KafkaHeaders.KEY_EXCEPTION_MESSAGE)
+                .exceptionMessage(KafkaHeaders.EXCEPTION_MESSAGE)
+                .keyExceptionStacktrace(KafkaHeaders.KEY_EXCEPTION_STACKTRACE)
+                .exceptionStacktrace(KafkaHeaders.EXCEPTION_STACKTRACE)
+                .build());
+        return recoverer;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.notificationservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Лимиты отправки через SMTP-релей. notification.smtp.defaults.* действуют для любого хоста,
+ * notification.smtp.hosts[имя-хоста].* заменяют их для конкретного релея целиком.
+ */
+@ConfigurationProperties(prefix = "notification.smtp")
+public class SmtpProperties {
+
+    private Limits defaults = new Limits();
+    private Map<String, Limits> hosts = new HashMap<>();
+
+    public Limits limitsFor(String host) {
+        if (host != null) {
+            for (Map.Entry<String, Limits> entry : hosts.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(host.toLowerCase(Locale.ROOT))) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return defaults;
+    }
+
+    public Limits getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Limits defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Limits> getHosts() {
+        return hosts;
+    }
+
+    public void setHosts(Map<String, Limits> hosts) {
+        this.hosts = hosts;
+    }
+
+    public static class Limits {
+
+        // Необязательный потолок скорости (писем в секунду) - для релеев с известной квотой.
+        // 0 - без потолка, пропускную способность определяет адаптивный лимит одновременных отправок.
+        // burst - сколько писем можно отправить пачкой после простоя, 0 - секундная квота
+        private double ratePerSecond;
+        private int burst;
+        // Границы и стартовое значение адаптивного лимита одновременных отправок
+        private int initialConcurrency = 4;
+        private int minConcurrency = 1;
+        private int maxConcurrency = 64;
+        // Отправка дольше этого считается признаком перегрузки релея
+        private long latencyThresholdMs = 2000;
+        // Во сколько раз лимит уменьшается при 421/450 или медленном ответе
+        private double backoffRatio = 0.5;
+
+        public double getRatePerSecond() {
+            return ratePerSecond;
+        }
+
+        public void setRatePerSecond(double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public boolean hasRateLimit() {
+            return ratePerSecond > 0;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public int getInitialConcurrency() {
+            return initialConcurrency;
+        }
+
+        public void setInitialConcurrency(int initialConcurrency) {
+            this.initialConcurrency = initialConcurrency;
+        }
+
+        public int getMinConcurrency() {
+            return minConcurrency;
+        }
+
+        public void setMinConcurrency(int minConcurrency) {
+            this.minConcurrency = minConcurrency;
+        }
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public long getLatencyThresholdMs() {
+            return latencyThresholdMs;
+        }
+
+        public void setLatencyThresholdMs(long latencyThresholdMs) {
+            this.latencyThresholdMs = latencyThresholdMs;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+    }
+}
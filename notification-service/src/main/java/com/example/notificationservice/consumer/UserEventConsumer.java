@@ -1,46 +1,251 @@
 package com.example.notificationservice.consumer;
 
-import com.example.notificationservice.event.UserEvent;
+import com.example.events.UserEvent;
+import com.example.notificationservice.config.KafkaConfig;
+import com.example.notificationservice.service.EmailDispatcher;
+import com.example.notificationservice.service.EmailMessage;
 import com.example.notificationservice.service.EmailService;
+import com.example.notificationservice.service.EmailTemplateRegistry;
+import com.example.notificationservice.service.NotificationCoalescer;
+import com.example.notificationservice.service.ProcessedEventStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обработчик событий user-events. Активен один из слушателей, в зависимости от
+ * notification.kafka.mode: record (по одной записи), batch (списком на каждый poll)
+ * или async (отправка писем через {@link EmailDispatcher}, с окном склейки {@link NotificationCoalescer}).
+ * Повторно доставленные события отсекаются по eventId через {@link ProcessedEventStore}.
+ * Событие, письмо по которому так и не удалось отправить, попадает в user-events-dlt;
+ * оттуда его можно перезапустить через POST /api/notifications/dlt/replay.
+ */
 @Component
 public class UserEventConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(UserEventConsumer.class);
 
     private final EmailService emailService;
+    private final EmailTemplateRegistry emailTemplates;
+    private final NotificationCoalescer coalescer;
+    private final ProcessedEventStore processedEvents;
+    private final DeadLetterPublishingRecoverer deadLetterRecoverer;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSize;
+    private final Counter deadLetterRetries;
+    private final long deadLetterRetryInitialMs;
+    private final long deadLetterRetryMaxMs;
+    private final ScheduledExecutorService deadLetterRetryScheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("dlt-retry").daemon().factory());
 
-    public UserEventConsumer(EmailService emailService) {
+    public UserEventConsumer(EmailService emailService, EmailTemplateRegistry emailTemplates,
+                             NotificationCoalescer coalescer, ProcessedEventStore processedEvents,
+                             DeadLetterPublishingRecoverer deadLetterRecoverer, MeterRegistry meterRegistry,
+                             @Value("${notification.kafka.dlt.retry-initial-delay-ms:1000}") long deadLetterRetryInitialMs,
+                             @Value("${notification.kafka.dlt.retry-max-delay-ms:30000}") long deadLetterRetryMaxMs) {
         this.emailService = emailService;
+        this.emailTemplates = emailTemplates;
+        this.coalescer = coalescer;
+        this.processedEvents = processedEvents;
+        this.deadLetterRecoverer = deadLetterRecoverer;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = DistributionSummary.builder("notification.events.batch.size")
+                .description("Records per poll in batch mode")
+                .register(meterRegistry);
+        this.deadLetterRetries = Counter.builder("notification.events.dead.letter.retries")
+                .description("Failed attempts to publish an async-mode record to the DLT")
+                .register(meterRegistry);
+        this.deadLetterRetryInitialMs = deadLetterRetryInitialMs;
+        this.deadLetterRetryMaxMs = deadLetterRetryMaxMs;
+    }
+
+    @PreDestroy
+    public void stopDeadLetterRetries() {
+        deadLetterRetryScheduler.shutdownNow();
     }
 
-    @KafkaListener(topics = "user-events", groupId = "notification-group")
+    // Неудачная запись уходит в user-events-retry-0, -1, ... и ждёт своей задержки там,
+    // не задерживая остальные записи партиции; после последней попытки - в user-events-dlt
+    @RetryableTopic(
+            attempts = "${notification.kafka.retry.attempts:4}",
+            backoff = @Backoff(
+                    delayExpression = "${notification.kafka.retry.initial-delay-ms:1000}",
+                    multiplierExpression = "${notification.kafka.retry.multiplier:5}",
+                    maxDelayExpression = "${notification.kafka.retry.max-delay-ms:60000}"),
+            numPartitions = "${notification.kafka.retry.partitions:3}",
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            dltTopicSuffix = "-dlt",
+            kafkaTemplate = "kafkaTemplate")
+    @KafkaListener(id = "userEventListener", topics = "user-events", groupId = "notification-group",
+            autoStartup = "#{'${notification.kafka.mode:record}' == 'record'}")
     public void handleUserEvent(UserEvent event) {
         log.info("Received user event: {}", event);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            notifyUser(event);
+        } catch (RuntimeException e) {
+            recordHandling(sample, "record", "failure");
+            throw e;
+        }
+        recordHandling(sample, "record", "success");
+    }
 
-        String email = event.getUserEmail();
-        String userName = event.getUserName();
+    @DltHandler
+    public void handleDeadLetter(UserEvent event, @Header(KafkaHeaders.EXCEPTION_MESSAGE) String cause) {
+        log.error("User event moved to {} after retries: {}, cause: {}", KafkaConfig.USER_EVENTS_DLT, event, cause);
+    }
 
-        if ("USER_CREATED".equals(event.getEventType())) {
-            String creationSubject = "Добро пожаловать!";
-            String creationText = String.format(
-                    "Здравствуйте, %s! Ваш аккаунт был создан.",
-                    userName
-            );
-            emailService.sendEmail(email, creationSubject, creationText);
-        } else if ("USER_DELETED".equals(event.getEventType())) {
-            String deletionSubject = "Аккаунт удален";
-            String deletionText = String.format(
-                    "Здравствуйте, %s! Ваш аккаунт был удален.",
-                    userName
-            );
-            emailService.sendEmail(email, deletionSubject, deletionText);
+    @KafkaListener(id = "userEventBatchListener", topics = "user-events", groupId = "notification-group",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{'${notification.kafka.mode:record}' == 'batch'}")
+    public void handleUserEvents(List<UserEvent> events) {
+        log.info("Received batch of {} user events", events.size());
+        batchSize.record(events.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        for (int i = 0; i < events.size(); i++) {
+            UserEvent event = events.get(i);
+            if (event == null) {
+                // Запись не десериализовалась; обработчик ошибок перенесёт её в DLT исходными байтами
+                recordHandling(sample, "batch", "failure");
+                throw new BatchListenerFailedException("Undeserializable user event at index " + i, i);
+            }
+            log.debug("Handling user event: {}", event);
+            try {
+                notifyUser(event);
+            } catch (RuntimeException e) {
+                recordHandling(sample, "batch", "failure");
+                // Смещения записей до i будут закоммичены, пачка повторится с неудачной записи
+                throw new BatchListenerFailedException("Failed to handle user event: " + event, e, i);
+            }
         }
+        recordHandling(sample, "batch", "success");
+    }
 
-        log.info("Email sent to: {}", email);
+    // Медленный SMTP больше не держит поток консьюмера: записи одной партиции расходятся
+    // по дорожкам диспетчера, письма одного userId - по порядку. Запись подтверждается,
+    // когда письмо отправлено; коммитится только непрерывный префикс подтверждённых смещений.
+    // Письмо, которое не удалось отправить, уходит в user-events-dlt, и запись тоже
+    // подтверждается. Неподтверждённую запись контейнер с asyncAcks не передоставляет,
+    // а держит консьюмер на паузе, пока она не будет подтверждена, - поэтому неудачная
+    // запись в DLT повторяется с нарастающей задержкой, и запись подтверждается после успеха.
+    // Склейка писем работает только здесь: подтверждение ждёт отправки дайджеста,
+    // поэтому накопленные в окне события при падении сервиса будут доставлены повторно.
+    // Зато следующий poll() ждёт конца окна, и дайджест не выходит за пределы одного poll()
+    @KafkaListener(id = "userEventAsyncListener", topics = "user-events", groupId = "notification-group",
+            containerFactory = "asyncKafkaListenerContainerFactory",
+            autoStartup = "#{'${notification.kafka.mode:record}' == 'async'}")
+    public void handleUserEventAsync(ConsumerRecord<String, UserEvent> record, Acknowledgment acknowledgment) {
+        UserEvent event = record.value();
+        log.debug("Received user event: {}", event);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        EmailMessage message = emailTemplates.render(event);
+        if (message == null || !claim(event)) {
+            acknowledgment.acknowledge();
+            recordHandling(sample, "async", "skipped");
+            return;
+        }
+        coalescer.submit(event.getUserId(), event, message).whenComplete((sent, error) -> {
+            if (error == null) {
+                processedEvents.complete(event.getEventId());
+                log.info("Email sent to: {}", message.to());
+                acknowledgment.acknowledge();
+                recordHandling(sample, "async", "success");
+            } else if (error instanceof RejectedExecutionException) {
+                processedEvents.release(event.getEventId());
+                recordHandling(sample, "async", "rejected");
+                log.warn("Email for {} not dispatched, event will be redelivered: {}", event, error.getMessage());
+            } else {
+                processedEvents.release(event.getEventId());
+                log.error("Failed to send email for event {}, moving it to {}", event, KafkaConfig.USER_EVENTS_DLT, error);
+                deadLetterAndAcknowledge(record, error, acknowledgment, sample, deadLetterRetryInitialMs);
+            }
+        });
+    }
+
+    private void deadLetterAndAcknowledge(ConsumerRecord<String, UserEvent> record, Throwable error,
+                                          Acknowledgment acknowledgment, Timer.Sample sample, long nextDelayMs) {
+        if (deadLetter(record, error)) {
+            acknowledgment.acknowledge();
+            recordHandling(sample, "async", "dead-letter");
+            return;
+        }
+        deadLetterRetries.increment();
+        log.warn("User event {} not stored in {}, retrying in {} ms", record.value(), KafkaConfig.USER_EVENTS_DLT,
+                nextDelayMs);
+        try {
+            deadLetterRetryScheduler.schedule(() -> deadLetterAndAcknowledge(record, error, acknowledgment, sample,
+                    Math.min(nextDelayMs * 2, deadLetterRetryMaxMs)), nextDelayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Сервис останавливается: смещение не закоммичено, запись придёт снова после перезапуска
+            recordHandling(sample, "async", "dead-letter-failed");
+            log.warn("Stopped retrying {} for user event {}, it will be redelivered after restart",
+                    KafkaConfig.USER_EVENTS_DLT, record.value());
+        }
+    }
+
+    private void notifyUser(UserEvent event) {
+        EmailMessage message = emailTemplates.render(event);
+        if (message == null || !claim(event)) {
+            return;
+        }
+        try {
+            emailService.sendEmail(message.to(), message.subject(), message.text());
+        } catch (RuntimeException e) {
+            processedEvents.release(event.getEventId());
+            throw e;
+        }
+        processedEvents.complete(event.getEventId());
+
+        log.info("Email sent to: {}", event.getUserEmail());
+    }
+
+    // В режиме async время - от получения записи до отправки письма, включая очередь диспетчера и окно склейки
+    private void recordHandling(Timer.Sample sample, String mode, String outcome) {
+        sample.stop(Timer.builder("notification.events.handling")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    // false - запись в DLT не попала и подтверждать её нельзя, иначе событие потеряется
+    private boolean deadLetter(ConsumerRecord<String, UserEvent> record, Throwable error) {
+        try {
+            deadLetterRecoverer.accept(record, error instanceof Exception e ? e : new RuntimeException(error));
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Failed to publish user event {} to {}", record.value(), KafkaConfig.USER_EVENTS_DLT, e);
+            return false;
+        }
+    }
+
+    private boolean claim(UserEvent event) {
+        if (processedEvents.tryClaim(event.getEventId())) {
+            return true;
+        }
+        log.info("Skipping duplicate user event: {}", event.getEventId());
+        return false;
     }
-}
\ No newline at end of file
+}
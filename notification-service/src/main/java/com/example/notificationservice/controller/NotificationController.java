@@ -1,6 +1,8 @@
 package com.example.notificationservice.controller;
 
+import com.example.notificationservice.service.DeadLetterReplayService;
 import com.example.notificationservice.service.EmailService;
+import com.example.notificationservice.service.NotificationCoalescer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -9,9 +11,14 @@ import org.springframework.web.bind.annotation.*;
 public class NotificationController {
 
     private final EmailService emailService;
+    private final DeadLetterReplayService deadLetterReplayService;
+    private final NotificationCoalescer coalescer;
 
-    public NotificationController(EmailService emailService) {
+    public NotificationController(EmailService emailService, DeadLetterReplayService deadLetterReplayService,
+                                  NotificationCoalescer coalescer) {
         this.emailService = emailService;
+        this.deadLetterReplayService = deadLetterReplayService;
+        this.coalescer = coalescer;
     }
 
     @PostMapping("/email")
@@ -23,4 +30,20 @@ public class NotificationController {
         emailService.sendEmail(to, subject, text);
         return ResponseEntity.ok("Email sent successfully to: " + to);
     }
-}
\ No newline at end of file
+
+    // Перезапускает события из user-events-dlt, например после устранения сбоя SMTP
+    @PostMapping("/dlt/replay")
+    public ResponseEntity<String> replayDeadLetters(@RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().body("limit must be positive");
+        }
+        int replayed = deadLetterReplayService.replay(limit);
+        return ResponseEntity.ok("Replayed events: " + replayed);
+    }
+
+    // Сколько писем сэкономила склейка уведомлений с момента старта
+    @GetMapping("/coalescing")
+    public NotificationCoalescer.CoalescingStats coalescingStats() {
+        return coalescer.getStats();
+    }
+}
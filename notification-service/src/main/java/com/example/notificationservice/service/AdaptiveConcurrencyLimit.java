@@ -0,0 +1,107 @@
+package com.example.notificationservice.service;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Лимит одновременных отправок по схеме AIMD: каждая успешная быстрая отправка
+ * увеличивает лимит на 1/limit (примерно +1 за «круг» отправок), перегрузка уменьшает
+ * его в backoffRatio раз. Уменьшение срабатывает не чаще одного раза на волну:
+ * отправки, начатые до предыдущего уменьшения, лимит повторно не режут.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final LongSupplier nanoTime;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+        this(initialLimit, minLimit, maxLimit, backoffRatio, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, LongSupplier nanoTime) {
+        if (minLimit < 1 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid concurrency limits");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.nanoTime = nanoTime;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecreaseNanos = nanoTime.getAsLong();
+    }
+
+    /**
+     * Ждёт свободного места и возвращает время начала отправки для {@link #release}.
+     */
+    public long acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                available.await();
+            }
+            inFlight++;
+            return nanoTime.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long startNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (overloaded) {
+                if (startNanos - lastDecreaseNanos >= 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = nanoTime.getAsLong();
+                }
+            } else if (inFlight + 1 >= (int) limit) {
+                // Растём, только если лимит действительно упирался: иначе он раздувается без нагрузки
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает место, не учитывая попытку в лимите: отправки не было.
+     */
+    public void cancel() {
+        lock.lock();
+        try {
+            inFlight--;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.notificationservice.service;
+
+import com.example.events.UserEvent;
+import com.example.notificationservice.config.KafkaConfig;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Повторный запуск событий из user-events-dlt: читает DLT отдельной группой
+ * notification-dlt-replay и публикует события обратно в user-events с тем же ключом.
+ * Смещение в DLT коммитится только после того, как брокер принял событие в user-events,
+ * поэтому прерванный запуск ничего не теряет, а повтор отсекается по eventId.
+ */
+@Service
+public class DeadLetterReplayService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterReplayService.class);
+
+    static final String REPLAY_GROUP = "notification-dlt-replay";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final int MAX_EMPTY_POLLS = 3;
+
+    private final ConsumerFactory<String, Object> consumerFactory;
+    private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+
+    public DeadLetterReplayService(ConsumerFactory<String, Object> consumerFactory,
+                                   KafkaTemplate<String, UserEvent> kafkaTemplate) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    /**
+     * Переносит в user-events не больше limit записей DLT. Возвращает число перенесённых.
+     */
+    public synchronized int replay(int limit) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, limit);
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        int replayed = 0;
+        try (Consumer<String, Object> consumer =
+                     consumerFactory.createConsumer(REPLAY_GROUP, null, null, overrides)) {
+            consumer.subscribe(List.of(KafkaConfig.USER_EVENTS_DLT));
+            int emptyPolls = 0;
+            while (replayed < limit && emptyPolls < MAX_EMPTY_POLLS) {
+                ConsumerRecords<String, Object> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    emptyPolls++;
+                    continue;
+                }
+                emptyPolls = 0;
+
+                List<CompletableFuture<?>> sends = new ArrayList<>();
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<String, Object> record : records) {
+                    if (replayed == limit) {
+                        break;
+                    }
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                    // Нечитаемую запись перезапускать бессмысленно: она остаётся в DLT для разбора
+                    if (!(record.value() instanceof UserEvent event)) {
+                        log.warn("Skipping undeserializable record {}-{}@{} in {}", record.topic(),
+                                record.partition(), record.offset(), KafkaConfig.USER_EVENTS_DLT);
+                        continue;
+                    }
+                    sends.add(kafkaTemplate.send(KafkaConfig.USER_EVENTS_TOPIC, record.key(), event));
+                    replayed++;
+                }
+                CompletableFuture.allOf(sends.toArray(CompletableFuture<?>[]::new)).join();
+                consumer.commitSync(offsets);
+            }
+        }
+        log.info("Replayed {} events from {}", replayed, KafkaConfig.USER_EVENTS_DLT);
+        return replayed;
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.notificationservice.service;
+
+import com.example.notificationservice.config.SmtpProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Асинхронная отправка писем с сохранением порядка по ключу. Письма отправляет
+ * фиксированный пул платформенных потоков размером с max-concurrency SMTP-релея:
+ * Jakarta Mail блокируется на сокете внутри synchronized, и виртуальный поток занял бы
+ * поток-носитель. Письма одного ключа (userId) стоят в своей очереди и отправляются
+ * строго по порядку, по одному за раз, поэтому активный пользователь занимает не больше
+ * одного потока, а остальные ключи идут параллельно.
+ * <p>
+ * Поток Kafka-слушателя только ставит письмо в очередь и получает future, по завершении
+ * которого подтверждает смещение. Ёмкость queue-capacity общая для всех ключей: когда
+ * принято столько неотправленных писем, {@link #dispatch} блокируется - это и есть
+ * обратное давление на консьюмер.
+ * <p>
+ * При остановке диспетчер ставит контейнеры слушателей на паузу, дожидается отправки
+ * уже принятых писем (их подтверждения ещё успевают закоммититься) и только потом
+ * завершает рабочие потоки. Фаза выше, чем у контейнеров, поэтому он останавливается первым.
+ */
+@Service
+public class EmailDispatcher implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    private final EmailService emailService;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final int workerCount;
+    private final Semaphore capacity;
+    private final long drainTimeoutMs;
+
+    // Ключ -> письма, ждущие окончания текущей отправки этого ключа; наличие ключа
+    // означает, что его очередь уже обслуживает один из потоков
+    private final Map<Object, Deque<Task>> keyQueues = new HashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile ExecutorService workers;
+    private volatile boolean accepting = true;
+    private volatile boolean running;
+
+    @Autowired
+    public EmailDispatcher(EmailService emailService,
+                           KafkaListenerEndpointRegistry listenerRegistry,
+                           SmtpProperties smtpProperties,
+                           @Value("${spring.mail.host:localhost}") String relayHost,
+                           @Value("${notification.email.dispatcher.queue-capacity:4096}") int queueCapacity,
+                           @Value("${notification.email.dispatcher.drain-timeout-ms:30000}") long drainTimeoutMs) {
+        // Больше потоков, чем слотов в SmtpThrottle, только ждали бы слота
+        this(emailService, listenerRegistry, queueCapacity,
+                smtpProperties.limitsFor(relayHost).getMaxConcurrency(), drainTimeoutMs);
+    }
+
+    EmailDispatcher(EmailService emailService, KafkaListenerEndpointRegistry listenerRegistry,
+                    int queueCapacity, int workerCount, long drainTimeoutMs) {
+        this.emailService = emailService;
+        this.listenerRegistry = listenerRegistry;
+        this.workerCount = workerCount;
+        this.capacity = new Semaphore(queueCapacity);
+        this.drainTimeoutMs = drainTimeoutMs;
+        // Потоки фиксированного пула создаются по первым задачам: письма, принятые до start(),
+        // уже отправляются, иначе контейнеры слушателей стартуют раньше и ждали бы подтверждений
+        this.workers = newWorkers();
+    }
+
+    /**
+     * Ставит письмо в очередь его ключа: письма с равными ключами отправляются в порядке
+     * вызова. Future завершается после отправки или с ошибкой отправки; если диспетчер
+     * уже остановлен - с {@link RejectedExecutionException}.
+     */
+    public CompletableFuture<Void> dispatch(Object orderingKey, EmailMessage message) {
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        if (!accepting) {
+            completion.completeExceptionally(new RejectedExecutionException("Email dispatcher is stopped"));
+            return completion;
+        }
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completion.completeExceptionally(new RejectedExecutionException("Interrupted while queueing email", e));
+            return completion;
+        }
+        inFlight.incrementAndGet();
+        queued.incrementAndGet();
+        Task task = new Task(orderingKey, message, completion);
+        synchronized (keyQueues) {
+            Deque<Task> keyQueue = keyQueues.get(orderingKey);
+            if (keyQueue != null) {
+                keyQueue.addLast(task);
+                return completion;
+            }
+            keyQueues.put(orderingKey, new ArrayDeque<>());
+        }
+        try {
+            workers.execute(new Drain(task));
+        } catch (RejectedExecutionException e) {
+            // Остановка успела закрыть пул между проверкой accepting и постановкой
+            synchronized (keyQueues) {
+                keyQueues.remove(orderingKey);
+            }
+            reject(task);
+        }
+        return completion;
+    }
+
+    public int getQueueSize() {
+        return queued.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (workers.isShutdown()) {
+            workers = newWorkers();
+        }
+        accepting = true;
+        running = true;
+        log.info("Email dispatcher started with {} key-ordered platform worker threads", workerCount);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        listenerRegistry.getListenerContainers().forEach(MessageListenerContainer::pause);
+
+        long deadline = System.currentTimeMillis() + drainTimeoutMs;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        accepting = false;
+        running = false;
+        if (inFlight.get() > 0) {
+            log.warn("Email dispatcher stopped with {} emails not sent; their events will be redelivered",
+                    inFlight.get());
+        }
+
+        // Прерывание снимает с ожидания слота в SmtpThrottle; начатые отправки завершаются сами
+        for (Runnable notStarted : workers.shutdownNow()) {
+            reject(((Drain) notStarted).first());
+        }
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Email worker threads did not finish within 5 s after interrupt");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (keyQueues) {
+            for (Deque<Task> keyQueue : keyQueues.values()) {
+                keyQueue.forEach(this::reject);
+            }
+            keyQueues.clear();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Ниже, чем у NotificationCoalescer: склеенные письма успевают попасть в очереди до остановки
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 1;
+    }
+
+    private ExecutorService newWorkers() {
+        return Executors.newFixedThreadPool(workerCount, Thread.ofPlatform().name("email-worker-", 0).factory());
+    }
+
+    private void send(Task task) {
+        queued.decrementAndGet();
+        // Счётчик уменьшается до завершения future: к моменту подтверждения записи
+        // письмо уже не считается находящимся в работе
+        RuntimeException failure = null;
+        try {
+            EmailMessage message = task.message();
+            emailService.sendEmail(message.to(), message.subject(), message.text());
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        inFlight.decrementAndGet();
+        capacity.release();
+        if (failure == null) {
+            task.completion().complete(null);
+        } else {
+            task.completion().completeExceptionally(failure);
+        }
+    }
+
+    private void reject(Task task) {
+        queued.decrementAndGet();
+        inFlight.decrementAndGet();
+        capacity.release();
+        task.completion().completeExceptionally(new RejectedExecutionException("Email dispatcher is stopped"));
+    }
+
+    /**
+     * Обслуживает очередь одного ключа, пока она не опустеет. После остановки оставшиеся
+     * письма не трогает - их отклоняет {@link #stop}.
+     */
+    private final class Drain implements Runnable {
+
+        private final Task first;
+
+        private Drain(Task first) {
+            this.first = first;
+        }
+
+        Task first() {
+            return first;
+        }
+
+        @Override
+        public void run() {
+            Task task = first;
+            while (task != null) {
+                send(task);
+                if (!accepting) {
+                    return;
+                }
+                synchronized (keyQueues) {
+                    Deque<Task> keyQueue = keyQueues.get(first.orderingKey());
+                    task = keyQueue == null ? null : keyQueue.pollFirst();
+                    if (task == null) {
+                        keyQueues.remove(first.orderingKey());
+                    }
+                }
+            }
+        }
+    }
+
+    private record Task(Object orderingKey, EmailMessage message, CompletableFuture<Void> completion) {
+    }
+}
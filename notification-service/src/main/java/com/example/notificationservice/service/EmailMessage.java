@@ -0,0 +1,4 @@
+package com.example.notificationservice.service;
+
+public record EmailMessage(String to, String subject, String text) {
+}
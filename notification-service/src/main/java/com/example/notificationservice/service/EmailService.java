@@ -1,16 +1,26 @@
 package com.example.notificationservice.service;
 
+import com.example.notificationservice.config.SmtpProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+/**
+ * Отправка писем через SMTP-релей spring.mail.host с лимитами {@link SmtpThrottle}
+ * для этого хоста (notification.smtp.*).
+ */
 @Service
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final SmtpThrottle throttle;
 
-    public EmailService(JavaMailSender mailSender) {
+    public EmailService(JavaMailSender mailSender, SmtpProperties smtpProperties, MeterRegistry meterRegistry,
+                        @Value("${spring.mail.host:localhost}") String relayHost) {
         this.mailSender = mailSender;
+        this.throttle = new SmtpThrottle(relayHost, smtpProperties.limitsFor(relayHost), meterRegistry);
     }
 
     public void sendEmail(String to, String subject, String text) {
@@ -19,6 +29,13 @@ public class EmailService {
         message.setSubject(subject);
         message.setText(text);
 
-        mailSender.send(message);
+        throttle.execute(() -> {
+            mailSender.send(message);
+            return null;
+        });
     }
-}
\ No newline at end of file
+
+    public SmtpThrottle getThrottle() {
+        return throttle;
+    }
+}
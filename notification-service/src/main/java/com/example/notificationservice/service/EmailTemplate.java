@@ -0,0 +1,74 @@
+package com.example.notificationservice.service;
+
+import com.example.events.UserEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Шаблон письма, разобранный один раз при загрузке: чередование литералов и подстановок.
+ * Отрисовка только дописывает готовые куски в буфер, без разбора строки формата.
+ */
+public final class EmailTemplate {
+
+    enum Variable {
+        USER_NAME("userName", UserEvent::getUserName),
+        USER_EMAIL("userEmail", UserEvent::getUserEmail),
+        USER_ID("userId", UserEvent::getUserId);
+
+        private final String placeholder;
+        private final Function<UserEvent, Object> accessor;
+
+        Variable(String placeholder, Function<UserEvent, Object> accessor) {
+            this.placeholder = placeholder;
+            this.accessor = accessor;
+        }
+
+        static Variable of(String placeholder) {
+            for (Variable variable : values()) {
+                if (variable.placeholder.equals(placeholder)) {
+                    return variable;
+                }
+            }
+            throw new IllegalArgumentException("Unknown template placeholder: {" + placeholder + "}");
+        }
+    }
+
+    // literals[i] идёт перед variables[i]; последний литерал - после последней подстановки
+    private final String[] literals;
+    private final Variable[] variables;
+
+    private EmailTemplate(String[] literals, Variable[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+    }
+
+    public static EmailTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<Variable> variables = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf('{', position);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in template: " + source);
+            }
+            literals.add(source.substring(position, open));
+            variables.add(Variable.of(source.substring(open + 1, close)));
+            position = close + 1;
+        }
+        literals.add(source.substring(position));
+        return new EmailTemplate(literals.toArray(new String[0]), variables.toArray(new Variable[0]));
+    }
+
+    public void renderTo(StringBuilder out, UserEvent event) {
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]).append(variables[i].accessor.apply(event));
+        }
+        out.append(literals[variables.length]);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.notificationservice.service;
+
+import com.example.events.UserEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Шаблоны писем по типу события и локали. Загружаются при старте из файлов
+ * {@code <локаль>.properties} (ключи {@code <EVENT_TYPE>.subject} и {@code <EVENT_TYPE>.text})
+ * и сразу компилируются; ошибка в шаблоне не даёт приложению стартовать.
+ * Если для локали нет шаблона, используется локаль по умолчанию.
+ */
+@Component
+public class EmailTemplateRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailTemplateRegistry.class);
+
+    // Буфер на поток: отрисовка не выделяет новый StringBuilder на каждое письмо
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final Map<Locale, Map<UserEvent.EventType, Templates>> templates = new HashMap<>();
+    private final Locale defaultLocale;
+
+    public EmailTemplateRegistry(
+            @Value("${notification.templates.location:classpath*:email-templates/*.properties}") String location,
+            @Value("${notification.templates.default-locale:ru}") Locale defaultLocale) {
+        this.defaultLocale = defaultLocale;
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location)) {
+                load(resource);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load email templates from " + location, e);
+        }
+        if (!templates.containsKey(defaultLocale)) {
+            throw new IllegalStateException("No email templates for default locale " + defaultLocale + " in " + location);
+        }
+        log.info("Loaded email templates for locales {}", templates.keySet());
+    }
+
+    /**
+     * Письмо для события в локали по умолчанию или null, если для типа события шаблона нет.
+     */
+    public EmailMessage render(UserEvent event) {
+        return render(event, defaultLocale);
+    }
+
+    public EmailMessage render(UserEvent event, Locale locale) {
+        if (event.getEventType() == null) {
+            return null;
+        }
+        Templates forType = templates.getOrDefault(locale, Map.of()).get(event.getEventType());
+        if (forType == null) {
+            forType = templates.get(defaultLocale).get(event.getEventType());
+        }
+        if (forType == null) {
+            return null;
+        }
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        forType.subject().renderTo(buffer, event);
+        String subject = buffer.toString();
+        buffer.setLength(0);
+        forType.text().renderTo(buffer, event);
+        return new EmailMessage(event.getUserEmail(), subject, buffer.toString());
+    }
+
+    private void load(Resource resource) throws IOException {
+        String filename = resource.getFilename();
+        Locale locale = Locale.forLanguageTag(filename.substring(0, filename.lastIndexOf('.')).replace('_', '-'));
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        Map<UserEvent.EventType, Templates> forLocale = new EnumMap<>(UserEvent.EventType.class);
+        for (UserEvent.EventType type : UserEvent.EventType.values()) {
+            String subject = properties.getProperty(type.name() + ".subject");
+            String text = properties.getProperty(type.name() + ".text");
+            if (subject == null && text == null) {
+                continue;
+            }
+            if (subject == null || text == null) {
+                throw new IllegalStateException("Template " + type + " in " + filename + " needs both subject and text");
+            }
+            try {
+                forLocale.put(type, new Templates(EmailTemplate.compile(subject), EmailTemplate.compile(text)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Invalid template " + type + " in " + filename + ": " + e.getMessage(), e);
+            }
+        }
+        templates.put(locale, forLocale);
+    }
+
+    private record Templates(EmailTemplate subject, EmailTemplate text) {
+    }
+}
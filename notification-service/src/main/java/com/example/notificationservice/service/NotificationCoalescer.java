@@ -0,0 +1,224 @@
+package com.example.notificationservice.service;
+
+import com.example.events.UserEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Окно склейки уведомлений перед {@link EmailDispatcher}. Письма одному адресату копятся
+ * в течение window с момента первого из них, затем уходят одним письмом-дайджестом.
+ * Пара USER_CREATED → USER_DELETED одного пользователя внутри окна взаимно гасится,
+ * и ни одно из двух писем не отправляется.
+ * <p>
+ * Future каждого события завершается вместе с отправкой письма, в которое оно вошло
+ * (или сразу при взаимном гашении), поэтому смещение в Kafka подтверждается не раньше
+ * фактической отправки. При window = 0 письма передаются диспетчеру напрямую.
+ * Останавливается раньше диспетчера и при остановке отправляет всё накопленное.
+ * <p>
+ * Ограничение: с asyncAcks консьюмер стоит на паузе, пока не подтверждены все записи его
+ * предыдущего poll(), а подтверждения здесь ждут конца окна. Поэтому дайджест склеивает
+ * только события, пришедшие одним poll() (или одновременными poll() разных консьюмеров),
+ * и каждый poll() длится не меньше window: потолок консьюмера - max-poll-records / window
+ * событий в секунду. Если поток событий партиции за window больше max-poll-records,
+ * консьюмер отстаёт.
+ */
+@Service
+public class NotificationCoalescer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationCoalescer.class);
+
+    private final EmailDispatcher emailDispatcher;
+    private final Clock clock;
+    private final long windowMillis;
+    private final String digestSubject;
+
+    // Адресат -> накопленные письма; порядок вставки совпадает с порядком истечения окон
+    private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+    private volatile boolean running;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    @Autowired
+    public NotificationCoalescer(EmailDispatcher emailDispatcher,
+                                 @Value("${notification.coalescing.window:0s}") Duration window,
+                                 @Value("${notification.coalescing.digest-subject:Уведомления по вашему аккаунту}") String digestSubject) {
+        this(emailDispatcher, Clock.systemUTC(), window, digestSubject);
+    }
+
+    NotificationCoalescer(EmailDispatcher emailDispatcher, Clock clock, Duration window, String digestSubject) {
+        this.emailDispatcher = emailDispatcher;
+        this.clock = clock;
+        this.windowMillis = window.toMillis();
+        this.digestSubject = digestSubject;
+    }
+
+    public CompletableFuture<Void> submit(Object orderingKey, UserEvent event, EmailMessage message) {
+        received.incrementAndGet();
+        if (windowMillis <= 0 || !running) {
+            sent.incrementAndGet();
+            return emailDispatcher.dispatch(orderingKey, message);
+        }
+
+        Entry entry = new Entry(event, message, new CompletableFuture<>());
+        synchronized (this) {
+            String recipient = message.to() == null ? "" : message.to().toLowerCase(Locale.ROOT);
+            Pending forRecipient = pending.get(recipient);
+            if (forRecipient == null) {
+                forRecipient = new Pending(orderingKey, clock.millis() + windowMillis);
+                pending.put(recipient, forRecipient);
+            }
+            if (event.getEventType() == UserEvent.EventType.USER_DELETED && cancelCreated(forRecipient, event, entry)) {
+                if (forRecipient.entries.isEmpty()) {
+                    pending.remove(recipient);
+                }
+                return entry.completion();
+            }
+            forRecipient.entries.add(entry);
+        }
+        return entry.completion();
+    }
+
+    @Scheduled(fixedDelayString = "${notification.coalescing.flush-interval-ms:250}")
+    public void flushDue() {
+        flush(false);
+    }
+
+    /**
+     * Сколько отправок через SMTP сэкономлено: события, не ставшие отдельными письмами.
+     */
+    public CoalescingStats getStats() {
+        long events = received.get();
+        long emails = sent.get();
+        return new CoalescingStats(events, emails, cancelled.get(), events - emails - pendingEvents());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush(true);
+        CoalescingStats stats = getStats();
+        log.info("Notification coalescing: {} events, {} emails sent, {} SMTP sends saved",
+                stats.events(), stats.emailsSent(), stats.sendsSaved());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Выше, чем у EmailDispatcher: при остановке накопленное успевает уйти в диспетчер
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+
+    private boolean cancelCreated(Pending forRecipient, UserEvent deleted, Entry deletedEntry) {
+        Iterator<Entry> iterator = forRecipient.entries.iterator();
+        while (iterator.hasNext()) {
+            Entry candidate = iterator.next();
+            if (candidate.event().getEventType() == UserEvent.EventType.USER_CREATED
+                    && candidate.event().getUserId() != null
+                    && candidate.event().getUserId().equals(deleted.getUserId())) {
+                iterator.remove();
+                cancelled.addAndGet(2);
+                candidate.completion().complete(null);
+                deletedEntry.completion().complete(null);
+                log.debug("User {} created and deleted within the coalescing window, no emails sent", deleted.getUserId());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void flush(boolean all) {
+        List<Pending> due = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.millis();
+            Iterator<Pending> iterator = pending.values().iterator();
+            while (iterator.hasNext()) {
+                Pending head = iterator.next();
+                if (!all && head.flushAt > now) {
+                    break;
+                }
+                iterator.remove();
+                due.add(head);
+            }
+        }
+        for (Pending forRecipient : due) {
+            send(forRecipient);
+        }
+    }
+
+    private void send(Pending forRecipient) {
+        List<Entry> entries = forRecipient.entries;
+        EmailMessage message = entries.size() == 1 ? entries.get(0).message() : digest(entries);
+        sent.incrementAndGet();
+        emailDispatcher.dispatch(forRecipient.orderingKey, message).whenComplete((result, error) -> {
+            for (Entry entry : entries) {
+                if (error == null) {
+                    entry.completion().complete(null);
+                } else {
+                    entry.completion().completeExceptionally(error);
+                }
+            }
+        });
+    }
+
+    private EmailMessage digest(List<Entry> entries) {
+        StringBuilder text = new StringBuilder();
+        for (Entry entry : entries) {
+            if (!text.isEmpty()) {
+                text.append("\n\n");
+            }
+            text.append(entry.message().text());
+        }
+        return new EmailMessage(entries.get(0).message().to(), digestSubject, text.toString());
+    }
+
+    private synchronized long pendingEvents() {
+        long count = 0;
+        for (Pending forRecipient : pending.values()) {
+            count += forRecipient.entries.size();
+        }
+        return count;
+    }
+
+    public record CoalescingStats(long events, long emailsSent, long cancelledByPairs, long sendsSaved) {
+    }
+
+    private record Entry(UserEvent event, EmailMessage message, CompletableFuture<Void> completion) {
+    }
+
+    private static final class Pending {
+        private final Object orderingKey;
+        private final long flushAt;
+        private final List<Entry> entries = new ArrayList<>();
+
+        Pending(Object orderingKey, long flushAt) {
+            this.orderingKey = orderingKey;
+            this.flushAt = flushAt;
+        }
+    }
+}
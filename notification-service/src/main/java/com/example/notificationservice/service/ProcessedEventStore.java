@@ -0,0 +1,212 @@
+package com.example.notificationservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Хранилище eventId уже обработанных событий для отсечения повторных доставок.
+ * Запись живёт ttl; порядок вставки совпадает с порядком истечения, поэтому истёкшие
+ * записи снимаются с головы. Если зафиксированных записей больше maxEntries, раньше срока
+ * вытесняются самые старые из них; захваты, ещё не завершённые отправкой, по размеру
+ * не вытесняются - иначе дубль прошёл бы, пока первое письмо ещё отправляется.
+ * <p>
+ * Событие сначала захватывается ({@link #tryClaim}), после отправки письма фиксируется
+ * ({@link #complete}), а при ошибке освобождается ({@link #release}) и может быть обработано
+ * повторно. Если задан notification.dedup.file, зафиксированные id периодически сохраняются
+ * в файл и читаются при старте, так что дубли отсекаются и после перезапуска.
+ * События без eventId не дедуплицируются.
+ */
+@Component
+public class ProcessedEventStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessedEventStore.class);
+
+    private final Clock clock;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Path file;
+
+    private final LinkedHashMap<UUID, Entry> entries = new LinkedHashMap<>();
+    private int claimed;
+    private boolean dirty;
+
+    @Autowired
+    public ProcessedEventStore(@Value("${notification.dedup.ttl:PT24H}") Duration ttl,
+                               @Value("${notification.dedup.max-entries:200000}") int maxEntries,
+                               @Value("${notification.dedup.file:}") String file) {
+        this(Clock.systemUTC(), ttl, maxEntries, file.isBlank() ? null : Path.of(file));
+    }
+
+    ProcessedEventStore(Clock clock, Duration ttl, int maxEntries, Path file) {
+        this.clock = clock;
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.file = file;
+    }
+
+    /**
+     * Возвращает false, если событие уже обработано или обрабатывается прямо сейчас.
+     */
+    public synchronized boolean tryClaim(UUID eventId) {
+        if (eventId == null) {
+            return true;
+        }
+        long now = clock.millis();
+        evict(now);
+        if (entries.containsKey(eventId)) {
+            return false;
+        }
+        entries.put(eventId, new Entry(now + ttlMillis, false));
+        claimed++;
+        return true;
+    }
+
+    public synchronized void complete(UUID eventId) {
+        Entry entry = eventId == null ? null : entries.get(eventId);
+        if (entry != null && !entry.done()) {
+            // Срок отсчитывается от отправки: запись переходит в хвост, порядок истечения сохраняется
+            long now = clock.millis();
+            entries.remove(eventId);
+            entries.put(eventId, new Entry(now + ttlMillis, true));
+            claimed--;
+            dirty = true;
+            evict(now);
+        }
+    }
+
+    public synchronized void release(UUID eventId) {
+        Entry entry = eventId == null ? null : entries.get(eventId);
+        if (entry != null && !entry.done()) {
+            entries.remove(eventId);
+            claimed--;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @PostConstruct
+    public void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        long now = clock.millis();
+        int loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            synchronized (this) {
+                while ((line = reader.readLine()) != null) {
+                    int separator = line.indexOf(' ');
+                    if (separator < 0) {
+                        continue;
+                    }
+                    long expiresAt = Long.parseLong(line.substring(separator + 1));
+                    if (expiresAt > now) {
+                        entries.put(UUID.fromString(line.substring(0, separator)), new Entry(expiresAt, true));
+                        loaded++;
+                    }
+                }
+                evict(now);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Failed to load processed event ids from {}, starting empty: {}", file, e.toString());
+            synchronized (this) {
+                entries.clear();
+                claimed = 0;
+            }
+            return;
+        }
+        log.info("Loaded {} processed event ids from {}", loaded, file);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.dedup.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        if (file == null) {
+            return;
+        }
+        List<Map.Entry<UUID, Entry>> snapshot;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            evict(clock.millis());
+            snapshot = new ArrayList<>(entries.size());
+            for (Map.Entry<UUID, Entry> entry : entries.entrySet()) {
+                if (entry.getValue().done()) {
+                    snapshot.add(Map.entry(entry.getKey(), entry.getValue()));
+                }
+            }
+            dirty = false;
+        }
+
+        // Пишем во временный файл и атомарно подменяем, чтобы сбой не оставил файл обрезанным
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp)) {
+                for (Map.Entry<UUID, Entry> entry : snapshot) {
+                    writer.write(entry.getKey() + " " + entry.getValue().expiresAt());
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to save processed event ids to {}: {}", file, e.toString());
+            synchronized (this) {
+                dirty = true;
+            }
+        }
+    }
+
+    private void evict(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry head = iterator.next();
+            if (head.expiresAt() > now) {
+                break;
+            }
+            iterator.remove();
+            if (!head.done()) {
+                claimed--;
+            }
+        }
+
+        // Пропускаем незавершённые захваты: их не больше, чем писем в отправке
+        int excess = entries.size() - claimed - maxEntries;
+        iterator = entries.values().iterator();
+        while (excess > 0 && iterator.hasNext()) {
+            if (iterator.next().done()) {
+                iterator.remove();
+                excess--;
+            }
+        }
+    }
+
+    private record Entry(long expiresAt, boolean done) {
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.notificationservice.service;
+
+import com.example.notificationservice.config.SmtpProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.springframework.mail.MailSendException;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Дроссель перед SMTP-релеем: адаптивный лимит одновременных отправок
+ * {@link AdaptiveConcurrencyLimit} и, если задан rate-per-second, потолок скорости
+ * {@link TokenBucket}. Ответы 4xx (421/450 и прочие временные отказы) и отправки дольше
+ * latency-threshold снижают лимит.
+ */
+public class SmtpThrottle {
+
+    // null - потолок скорости не задан
+    private final TokenBucket rate;
+    private final AdaptiveConcurrencyLimit concurrency;
+    private final long latencyThresholdNanos;
+    private final Counter throttled;
+    private final Timer sendSuccess;
+    private final Timer sendThrottled;
+    private final Timer sendFailure;
+
+    public SmtpThrottle(String host, SmtpProperties.Limits limits, MeterRegistry meterRegistry) {
+        this.rate = limits.hasRateLimit() ? new TokenBucket(limits.getRatePerSecond(), burst(limits)) : null;
+        this.concurrency = new AdaptiveConcurrencyLimit(limits.getInitialConcurrency(),
+                limits.getMinConcurrency(), limits.getMaxConcurrency(), limits.getBackoffRatio());
+        this.latencyThresholdNanos = limits.getLatencyThresholdMs() * 1_000_000L;
+        this.throttled = Counter.builder("notification.smtp.throttled")
+                .description("SMTP sends rejected by the relay with a transient 4xx reply")
+                .tag("host", host)
+                .register(meterRegistry);
+        // Время самой SMTP-отправки, без ожидания разрешения и слота
+        this.sendSuccess = sendTimer(host, "success", meterRegistry);
+        this.sendThrottled = sendTimer(host, "throttled", meterRegistry);
+        this.sendFailure = sendTimer(host, "failure", meterRegistry);
+        if (rate != null) {
+            Gauge.builder("notification.smtp.permits.available", rate, TokenBucket::availablePermits)
+                    .description("Rate limiter permits available right now")
+                    .tag("host", host)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("notification.smtp.concurrency.limit", concurrency, AdaptiveConcurrencyLimit::getLimit)
+                .tag("host", host)
+                .register(meterRegistry);
+        Gauge.builder("notification.smtp.in.flight", concurrency, AdaptiveConcurrencyLimit::getInFlight)
+                .tag("host", host)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выполняет отправку, дождавшись слота и разрешения. Прерывание во время ожидания
+     * (остановка диспетчера) - {@link RejectedExecutionException}: письмо не отправлялось,
+     * и консьюмер оставляет событие для повторной доставки, а не уводит его в DLT.
+     */
+    public <T> T execute(Supplier<T> send) {
+        long start;
+        try {
+            start = concurrency.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for an SMTP slot", e);
+        }
+        try {
+            if (rate != null) {
+                rate.acquire();
+            }
+        } catch (InterruptedException e) {
+            concurrency.cancel();
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for an SMTP rate permit", e);
+        }
+        boolean overloaded = false;
+        long sendStart = System.nanoTime();
+        try {
+            T result = send.get();
+            long elapsed = System.nanoTime() - sendStart;
+            sendSuccess.record(elapsed, TimeUnit.NANOSECONDS);
+            overloaded = elapsed > latencyThresholdNanos;
+            return result;
+        } catch (RuntimeException e) {
+            long elapsed = System.nanoTime() - sendStart;
+            if (isTransientReject(e)) {
+                overloaded = true;
+                throttled.increment();
+                sendThrottled.record(elapsed, TimeUnit.NANOSECONDS);
+            } else {
+                sendFailure.record(elapsed, TimeUnit.NANOSECONDS);
+            }
+            throw e;
+        } finally {
+            concurrency.release(start, overloaded);
+        }
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrency.getLimit();
+    }
+
+    public int getAvailablePermits() {
+        return rate != null ? rate.availablePermits() : Integer.MAX_VALUE;
+    }
+
+    public double getThrottledCount() {
+        return throttled.count();
+    }
+
+    private static int burst(SmtpProperties.Limits limits) {
+        return limits.getBurst() > 0 ? limits.getBurst() : (int) Math.max(1, Math.ceil(limits.getRatePerSecond()));
+    }
+
+    private static Timer sendTimer(String host, String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("notification.smtp.send")
+                .description("SMTP send latency")
+                .tag("host", host)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Временный отказ - код ответа 4xx из исключений SMTP-транспорта. MailSendException
+     * JavaMailSender хранит их по письмам в getFailedMessages(), MessagingException -
+     * цепочкой getNextException().
+     */
+    static boolean isTransientReject(Throwable error) {
+        Deque<Throwable> pending = new ArrayDeque<>();
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        pending.push(error);
+        while (!pending.isEmpty()) {
+            Throwable current = pending.pop();
+            if (!seen.add(current)) {
+                continue;
+            }
+            int code = replyCode(current);
+            if (code >= 400 && code < 500) {
+                return true;
+            }
+            if (current instanceof MailSendException mailSend) {
+                mailSend.getFailedMessages().values().forEach(pending::push);
+            }
+            if (current instanceof MessagingException messaging && messaging.getNextException() != null) {
+                pending.push(messaging.getNextException());
+            }
+            if (current.getCause() != null) {
+                pending.push(current.getCause());
+            }
+        }
+        return false;
+    }
+
+    private static int replyCode(Throwable error) {
+        if (error instanceof SMTPSendFailedException e) {
+            return e.getReturnCode();
+        }
+        if (error instanceof SMTPAddressFailedException e) {
+            return e.getReturnCode();
+        }
+        if (error instanceof SMTPSenderFailedException e) {
+            return e.getReturnCode();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.notificationservice.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Неблокирующий token bucket в форме GCRA: всё состояние - одно время tat, к которому
+ * ведро снова наполнится. Поток резервирует разрешение одним CAS и, если оно в будущем,
+ * спит до него сам, не держа никаких блокировок.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int burst;
+    private final LongSupplier nanoTime;
+    private final AtomicLong tat;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        this(ratePerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double ratePerSecond, int burst, LongSupplier nanoTime) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.burst = burst;
+        this.burstNanos = intervalNanos * burst;
+        this.nanoTime = nanoTime;
+        // tat в прошлом или сейчас - ведро полное
+        this.tat = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    /**
+     * Ждёт разрешения. Прерванный поток разрешения не получает: зарезервированное время
+     * пропадает, вызывающий не должен выполнять ограничиваемое действие.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        while (waitNanos > 0) {
+            long deadline = nanoTime.getAsLong() + waitNanos;
+            LockSupport.parkNanos(waitNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Interrupted while waiting for a rate permit");
+            }
+            waitNanos = deadline - nanoTime.getAsLong();
+        }
+    }
+
+    /**
+     * Резервирует одно разрешение и возвращает, сколько наносекунд до него осталось ждать.
+     */
+    long reserve() {
+        while (true) {
+            long now = nanoTime.getAsLong();
+            long current = tat.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (tat.compareAndSet(current, next)) {
+                return Math.max(0, next - now - burstNanos);
+            }
+        }
+    }
+
+    public int availablePermits() {
+        long used = Math.max(0, tat.get() - nanoTime.getAsLong());
+        return (int) Math.max(0, (burstNanos - used) / intervalNanos);
+    }
+}
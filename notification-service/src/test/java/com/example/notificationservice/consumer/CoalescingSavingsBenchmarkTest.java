@@ -0,0 +1,141 @@
+package com.example.notificationservice.consumer;
+
+import com.example.events.UserEvent;
+import com.example.notificationservice.service.EmailService;
+import com.example.notificationservice.service.NotificationCoalescer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Сколько SMTP-отправок экономит склейка при реалистичных настройках: окно 2 с,
+ * max-poll-records 500, события приходят равномерным потоком, а не заранее накопленной
+ * пачкой. Каждый десятый пользователь удаляется через 1-60 с после регистрации; такая пара
+ * гасится, только если оба события попали в один poll(). Запуск:
+ * mvn test -Dsurefire.excludedGroups= -Dgroups=benchmark -Dtest=CoalescingSavingsBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest
+@EmbeddedKafka(partitions = 3, topics = {"user-events"})
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "notification.kafka.mode=async",
+        "notification.kafka.concurrency=3",
+        "notification.kafka.max-poll-records=500",
+        "notification.coalescing.window=2s",
+        "notification.coalescing.flush-interval-ms=50"
+})
+class CoalescingSavingsBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CoalescingSavingsBenchmarkTest.class);
+    private static final int EVENTS_PER_SECOND = 500;
+    private static final int SECONDS = 20;
+    private static final double DELETED_SHARE = 0.1;
+    // Удаление приходит через 1..60 с после регистрации
+    private static final int MAX_DELETE_DELAY_SECONDS = 60;
+
+    @Autowired
+    private KafkaTemplate<String, UserEvent> kafkaTemplate;
+
+    @Autowired
+    private NotificationCoalescer coalescer;
+
+    @MockBean
+    private EmailService emailService;
+
+    @Test
+    void measureSendsSavedWithSteadyEventStream() throws Exception {
+        AtomicInteger smtpSends = new AtomicInteger();
+        doAnswer(invocation -> {
+            smtpSends.incrementAndGet();
+            return null;
+        }).when(emailService).sendEmail(anyString(), anyString(), anyString());
+
+        // События по секундам; удаление позже конца прогона не попадает в поток
+        Random random = new Random(42);
+        List<List<UserEvent>> schedule = new ArrayList<>();
+        for (int second = 0; second < SECONDS; second++) {
+            schedule.add(new ArrayList<>());
+        }
+        long userId = 0;
+        int pairs = 0;
+        int fastPairs = 0;
+        for (int second = 0; second < SECONDS; second++) {
+            while (schedule.get(second).size() < EVENTS_PER_SECOND) {
+                userId++;
+                schedule.get(second).add(event(UserEvent.EventType.USER_CREATED, userId));
+                if (random.nextDouble() < DELETED_SHARE) {
+                    int delay = 1 + random.nextInt(MAX_DELETE_DELAY_SECONDS);
+                    if (second + delay < SECONDS) {
+                        schedule.get(second + delay).add(event(UserEvent.EventType.USER_DELETED, userId));
+                        pairs++;
+                        if (delay <= 2) {
+                            fastPairs++;
+                        }
+                    }
+                }
+            }
+        }
+        long events = schedule.stream().mapToLong(List::size).sum();
+
+        long started = System.nanoTime();
+        for (List<UserEvent> second : schedule) {
+            long secondStarted = System.nanoTime();
+            for (UserEvent event : second) {
+                kafkaTemplate.send("user-events", String.valueOf(event.getUserId()), event);
+            }
+            kafkaTemplate.flush();
+            long rest = TimeUnit.SECONDS.toNanos(1) - (System.nanoTime() - secondStarted);
+            if (rest > 0) {
+                TimeUnit.NANOSECONDS.sleep(rest);
+            }
+        }
+        long produced = System.nanoTime();
+
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        NotificationCoalescer.CoalescingStats stats = coalescer.getStats();
+        while (!(stats.events() == events && stats.events() == stats.emailsSent() + stats.sendsSaved()
+                && smtpSends.get() == stats.emailsSent()) && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+            stats = coalescer.getStats();
+        }
+        long lagMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - produced);
+        double elapsedSeconds = (System.nanoTime() - started) / 1_000_000_000.0;
+
+        log.info("Coalescing, window 2s, {} events/s, max-poll-records 500: {} events, {} emails sent, "
+                        + "{} SMTP sends saved ({}%), {} created/deleted pairs cancelled of {} in the stream "
+                        + "({} of them deleted within 2 s)",
+                EVENTS_PER_SECOND, stats.events(), stats.emailsSent(), stats.sendsSaved(),
+                String.format("%.1f", 100.0 * stats.sendsSaved() / stats.events()),
+                stats.cancelledByPairs() / 2, pairs, fastPairs);
+        log.info("Coalescing: {} events/s end to end, last email {} ms after the last event was produced",
+                String.format("%.0f", stats.events() / elapsedSeconds), lagMs);
+        assertThat(stats.events()).isEqualTo(events);
+    }
+
+    private static UserEvent event(UserEvent.EventType type, long userId) {
+        UserEvent event = new UserEvent(type, userId, "user" + userId + "@example.com", "User " + userId,
+                LocalDateTime.now());
+        event.setEventId(UUID.randomUUID());
+        return event;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.notificationservice.consumer;
+
+import com.example.events.UserEvent;
+import com.example.notificationservice.service.EmailService;
+import com.example.notificationservice.service.EmailTemplateRegistry;
+import com.example.notificationservice.service.NotificationCoalescer;
+import com.example.notificationservice.service.ProcessedEventStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.mail.MailSendException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserEventConsumerTest {
+
+    private final NotificationCoalescer coalescer = mock(NotificationCoalescer.class);
+    private final DeadLetterPublishingRecoverer recoverer = mock(DeadLetterPublishingRecoverer.class);
+    private final Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    private final ProcessedEventStore processedEvents = new ProcessedEventStore(Duration.ofHours(1), 100, "");
+
+    private UserEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        EmailTemplateRegistry templates =
+                new EmailTemplateRegistry("classpath*:email-templates/*.properties", Locale.forLanguageTag("ru"));
+        consumer = new UserEventConsumer(mock(EmailService.class), templates, coalescer, processedEvents,
+                recoverer, new SimpleMeterRegistry(), 10, 100);
+        when(coalescer.submit(any(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new MailSendException("SMTP down")));
+    }
+
+    @Test
+    void handleUserEventAsync_SendFailed_AcknowledgesAfterDeadLetter() {
+        ConsumerRecord<String, UserEvent> record = record(event());
+
+        consumer.handleUserEventAsync(record, acknowledgment);
+
+        verify(recoverer).accept(eq(record), any(Exception.class));
+        verify(acknowledgment).acknowledge();
+    }
+
+    // Неподтверждённая запись держала бы контейнер на паузе: публикация в DLT повторяется до успеха
+    @Test
+    void handleUserEventAsync_DeadLetterFailed_RetriesUntilPublishedThenAcknowledges() {
+        UserEvent event = event();
+        doThrow(new KafkaException("DLT unavailable"))
+                .doThrow(new KafkaException("DLT unavailable"))
+                .doNothing()
+                .when(recoverer).accept(any(), any(Exception.class));
+
+        consumer.handleUserEventAsync(record(event), acknowledgment);
+
+        verify(acknowledgment, timeout(5_000)).acknowledge();
+        verify(recoverer, times(3)).accept(any(), any(Exception.class));
+        // Захват снят: повторная отправка из DLT будет обработана, а не отсечена как дубль
+        assertTrue(processedEvents.tryClaim(event.getEventId()));
+    }
+
+    @Test
+    void handleUserEventAsync_StoppedWhileRetryingDeadLetter_LeavesRecordUnacknowledged() {
+        doThrow(new KafkaException("DLT unavailable")).when(recoverer).accept(any(), any(Exception.class));
+        consumer.stopDeadLetterRetries();
+
+        consumer.handleUserEventAsync(record(event()), acknowledgment);
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    private static ConsumerRecord<String, UserEvent> record(UserEvent event) {
+        return new ConsumerRecord<>("user-events", 0, 42L, String.valueOf(event.getUserId()), event);
+    }
+
+    private static UserEvent event() {
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_CREATED, 1L, "ivan@example.com", "Иван",
+                LocalDateTime.of(2024, 3, 1, 12, 0));
+        event.setEventId(UUID.randomUUID());
+        return event;
+    }
+}
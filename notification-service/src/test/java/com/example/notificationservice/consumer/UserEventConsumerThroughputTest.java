@@ -0,0 +1,173 @@
+package com.example.notificationservice.consumer;
+
+import com.example.events.UserEvent;
+import com.example.events.UserEventSerializer;
+import com.example.notificationservice.service.EmailService;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Сравнение пропускной способности обработчика по одной записи, пакетного и асинхронного режимов.
+ * У всех контейнеров по консьюмеру на партицию; замер начинается, когда партиции уже распределены.
+ * Запуск: mvn test -Dsurefire.excludedGroups= -Dgroups=benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest
+@EmbeddedKafka(partitions = UserEventConsumerThroughputTest.PARTITIONS, topics = {"user-events"})
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "notification.kafka.mode=record",
+        "notification.kafka.concurrency=3"
+})
+class UserEventConsumerThroughputTest {
+
+    static final int PARTITIONS = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(UserEventConsumerThroughputTest.class);
+    private static final int EVENTS = 20_000;
+    private static final int SLOW_EVENTS = 3_000;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
+    @MockBean
+    private EmailService emailService;
+
+    private final AtomicReference<CountDownLatch> sent = new AtomicReference<>(new CountDownLatch(0));
+
+    @Test
+    void compareSingleRecordAndBatchListeners() throws Exception {
+        doAnswer(invocation -> {
+            sent.get().countDown();
+            return null;
+        }).when(emailService).sendEmail(anyString(), anyString(), anyString());
+
+        MessageListenerContainer single = registry.getListenerContainer("userEventListener");
+        MessageListenerContainer batch = registry.getListenerContainer("userEventBatchListener");
+        single.stop();
+        // В режиме record фабрика по умолчанию даёт один консьюмер; для сравнения - столько же, сколько у пакетного
+        ((ConcurrentMessageListenerContainer<?, ?>) single).setConcurrency(PARTITIONS);
+
+        KafkaTemplate<String, UserEvent> kafkaTemplate = kafkaTemplate();
+
+        double singleRate = measure(single, kafkaTemplate, 0);
+        double batchRate = measure(batch, kafkaTemplate, EVENTS);
+
+        log.info("Single-record listener: {} events/s", String.format("%.0f", singleRate));
+        log.info("Batch listener:         {} events/s", String.format("%.0f", batchRate));
+        assertThat(batchRate).isPositive();
+    }
+
+    // SMTP с задержкой 20 мс: пакетный режим ограничен числом партиций,
+    // асинхронный держит в полёте столько писем, сколько рабочих потоков у диспетчера
+    @Test
+    void compareBatchAndAsyncListenersWithSlowSmtp() throws Exception {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            concurrent.decrementAndGet();
+            sent.get().countDown();
+            return null;
+        }).when(emailService).sendEmail(anyString(), anyString(), anyString());
+
+        registry.getListenerContainer("userEventListener").stop();
+        MessageListenerContainer batch = registry.getListenerContainer("userEventBatchListener");
+        MessageListenerContainer async = registry.getListenerContainer("userEventAsyncListener");
+
+        KafkaTemplate<String, UserEvent> kafkaTemplate = kafkaTemplate();
+
+        double batchRate = measure(batch, kafkaTemplate, 1_000_000, SLOW_EVENTS);
+        int batchInFlight = maxConcurrent.getAndSet(0);
+        double asyncRate = measure(async, kafkaTemplate, 2_000_000, SLOW_EVENTS);
+        int asyncInFlight = maxConcurrent.get();
+
+        log.info("Batch listener, slow SMTP: {} events/s, up to {} sends in flight",
+                String.format("%.0f", batchRate), batchInFlight);
+        log.info("Async listener, slow SMTP: {} events/s, up to {} sends in flight",
+                String.format("%.0f", asyncRate), asyncInFlight);
+        assertThat(asyncInFlight).isGreaterThan(batchInFlight);
+    }
+
+    private double measure(MessageListenerContainer container, KafkaTemplate<String, UserEvent> kafkaTemplate,
+                           int firstUserId) throws InterruptedException {
+        return measure(container, kafkaTemplate, firstUserId, EVENTS);
+    }
+
+    private double measure(MessageListenerContainer container, KafkaTemplate<String, UserEvent> kafkaTemplate,
+                           int firstUserId, int events) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(events);
+        sent.set(latch);
+        for (int i = 0; i < events; i++) {
+            long userId = firstUserId + i;
+            UserEvent event = new UserEvent(UserEvent.EventType.USER_CREATED, userId, "user" + userId + "@example.com",
+                    "User " + userId, LocalDateTime.now());
+            kafkaTemplate.send("user-events", String.valueOf(userId), event);
+        }
+        kafkaTemplate.flush();
+
+        // Консьюмеры подключаются на паузе: запуск контейнера и ребалансировка не входят в замер
+        container.pause();
+        container.start();
+        awaitAssignment(container);
+        assertThat(latch.getCount()).isEqualTo(events);
+
+        long started = System.nanoTime();
+        container.resume();
+        assertThat(latch.await(2, TimeUnit.MINUTES)).isTrue();
+        long elapsed = System.nanoTime() - started;
+        container.stop();
+        return events / (elapsed / 1_000_000_000.0);
+    }
+
+    private static void awaitAssignment(MessageListenerContainer container) throws InterruptedException {
+        List<? extends MessageListenerContainer> consumers =
+                ((ConcurrentMessageListenerContainer<?, ?>) container).getContainers();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!consumers.stream().allMatch(c -> c.getAssignedPartitions() != null
+                && c.getAssignedPartitions().size() == 1)) {
+            assertThat(System.nanoTime()).as("partitions assigned").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private KafkaTemplate<String, UserEvent> kafkaTemplate() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafka.getBrokersAsString());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, UserEventSerializer.class);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.notificationservice.integration;
+
+import com.example.events.UserEvent;
+import com.example.notificationservice.service.EmailService;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Асинхронный режим: запись, которую не удалось сразу положить в DLT, не останавливает
+ * партицию - публикация повторяется, после неё запись подтверждается и следующие
+ * записи обрабатываются и коммитятся.
+ */
+@SpringBootTest
+@EmbeddedKafka(partitions = 1, topics = {"user-events"})
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "notification.kafka.mode=async",
+        "notification.kafka.concurrency=1",
+        "notification.kafka.dlt.retry-initial-delay-ms=100",
+        "notification.kafka.dlt.retry-max-delay-ms=200"
+})
+class AsyncDeadLetterIntegrationTest {
+
+    @Autowired
+    private KafkaTemplate<String, UserEvent> kafkaTemplate;
+
+    @Autowired
+    private KafkaAdmin kafkaAdmin;
+
+    @MockBean
+    private EmailService emailService;
+
+    @SpyBean
+    private DeadLetterPublishingRecoverer deadLetterRecoverer;
+
+    @Test
+    void deadLetterPublishFailure_ShouldNotStallPartition() throws Exception {
+        doThrow(new IllegalStateException("SMTP rejected bad@example.com"))
+                .when(emailService).sendEmail(eq("bad@example.com"), anyString(), anyString());
+        doThrow(new KafkaException("DLT unavailable"))
+                .doThrow(new KafkaException("DLT unavailable"))
+                .doCallRealMethod()
+                .when(deadLetterRecoverer).accept(any(), any(Exception.class));
+
+        // Все записи в одну партицию: следующие ждут подтверждения неудачной
+        kafkaTemplate.send("user-events", 0, "1", event(1L, "bad@example.com")).get();
+        verify(deadLetterRecoverer, timeout(15_000)).accept(any(), any(Exception.class));
+        kafkaTemplate.send("user-events", 0, "2", event(2L, "good1@example.com")).get();
+        kafkaTemplate.send("user-events", 0, "3", event(3L, "good2@example.com")).get();
+
+        verify(emailService, timeout(15_000)).sendEmail(eq("good1@example.com"), anyString(), anyString());
+        verify(emailService, timeout(15_000)).sendEmail(eq("good2@example.com"), anyString(), anyString());
+        verify(deadLetterRecoverer, times(3)).accept(any(), any(Exception.class));
+        assertThat(awaitCommittedOffset(3)).isEqualTo(3);
+    }
+
+    private long awaitCommittedOffset(long expected) throws Exception {
+        TopicPartition partition = new TopicPartition("user-events", 0);
+        long deadline = System.nanoTime() + Duration.ofSeconds(15).toNanos();
+        long committed = -1;
+        try (AdminClient admin = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            while (committed < expected && System.nanoTime() < deadline) {
+                Map<TopicPartition, OffsetAndMetadata> offsets = admin
+                        .listConsumerGroupOffsets("notification-group")
+                        .partitionsToOffsetAndMetadata().get();
+                OffsetAndMetadata offset = offsets.get(partition);
+                committed = offset != null ? offset.offset() : -1;
+                if (committed < expected) {
+                    Thread.sleep(100);
+                }
+            }
+        }
+        return committed;
+    }
+
+    private static UserEvent event(Long userId, String email) {
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_CREATED, userId, email, "User " + userId,
+                LocalDateTime.now());
+        event.setEventId(UUID.randomUUID());
+        return event;
+    }
+}
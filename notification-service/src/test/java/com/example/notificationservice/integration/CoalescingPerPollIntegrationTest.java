@@ -0,0 +1,85 @@
+package com.example.notificationservice.integration;
+
+import com.example.events.UserEvent;
+import com.example.notificationservice.service.EmailService;
+import com.example.notificationservice.service.NotificationCoalescer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Асинхронный режим со склейкой: дайджест не выходит за пределы одного poll(), потому что
+ * консьюмер ждёт подтверждения всех записей poll(), а те - конца окна.
+ */
+@SpringBootTest
+@EmbeddedKafka(partitions = 1, topics = {"user-events"})
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "notification.kafka.mode=async",
+        "notification.kafka.concurrency=1",
+        "notification.kafka.max-poll-records=5",
+        "notification.coalescing.window=1s",
+        "notification.coalescing.flush-interval-ms=50"
+})
+class CoalescingPerPollIntegrationTest {
+
+    private static final long WINDOW_MS = 1000;
+
+    @Autowired
+    private KafkaTemplate<String, UserEvent> kafkaTemplate;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
+    @Autowired
+    private NotificationCoalescer coalescer;
+
+    @MockBean
+    private EmailService emailService;
+
+    @Test
+    void digest_ShouldMergeOnlyEventsOfOnePoll() throws Exception {
+        MessageListenerContainer container = registry.getListenerContainer("userEventAsyncListener");
+        container.stop();
+
+        // Десять регистраций на один адрес уже лежат в партиции; poll() отдаёт их по пять
+        for (long userId = 1; userId <= 10; userId++) {
+            kafkaTemplate.send("user-events", 0, String.valueOf(userId), event(userId)).get();
+        }
+        long started = System.currentTimeMillis();
+        container.start();
+
+        verify(emailService, timeout(20_000).times(2)).sendEmail(eq("shared@example.com"), anyString(), anyString());
+        long elapsed = System.currentTimeMillis() - started;
+        Thread.sleep(WINDOW_MS + 500);
+
+        verify(emailService, times(2)).sendEmail(eq("shared@example.com"), anyString(), anyString());
+        NotificationCoalescer.CoalescingStats stats = coalescer.getStats();
+        assertThat(stats.events()).isEqualTo(10);
+        assertThat(stats.emailsSent()).isEqualTo(2);
+        assertThat(stats.sendsSaved()).isEqualTo(8);
+        // Второй poll() начался только после окна первого
+        assertThat(elapsed).isGreaterThanOrEqualTo(2 * WINDOW_MS);
+    }
+
+    private static UserEvent event(Long userId) {
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_CREATED, userId, "shared@example.com",
+                "User " + userId, LocalDateTime.now());
+        event.setEventId(UUID.randomUUID());
+        return event;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.notificationservice.integration;
+
+import com.example.events.UserEvent;
+import com.example.events.UserEventDeserializer;
+import com.example.notificationservice.service.EmailService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EmbeddedKafka(partitions = 1, topics = {"user-events"})
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "notification.kafka.mode=record",
+        "notification.kafka.retry.attempts=3",
+        "notification.kafka.retry.initial-delay-ms=2000",
+        "notification.kafka.retry.multiplier=1",
+        "notification.kafka.retry.partitions=1"
+})
+class DeadLetterFlowIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private KafkaTemplate<String, UserEvent> kafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @MockBean
+    private EmailService emailService;
+
+    @Test
+    void failedEvent_ShouldNotBlockPartitionAndEndInReplayableDlt() {
+        AtomicBoolean smtpDown = new AtomicBoolean(true);
+        List<String> attempts = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            String to = invocation.getArgument(0);
+            attempts.add(to);
+            if (to.equals("bad@example.com") && smtpDown.get()) {
+                throw new IllegalStateException("SMTP rejected bad@example.com");
+            }
+            return null;
+        }).when(emailService).sendEmail(anyString(), anyString(), anyString());
+
+        kafkaTemplate.send("user-events", "1", event(1L, "bad@example.com"));
+        kafkaTemplate.send("user-events", "2", event(2L, "good1@example.com"));
+        kafkaTemplate.send("user-events", "3", event(3L, "good2@example.com"));
+
+        // Основная попытка + две попытки в retry-топиках
+        verify(emailService, timeout(20_000).times(3)).sendEmail(eq("bad@example.com"), anyString(), anyString());
+        // Здоровые события обработаны сразу, не дожидаясь задержек повторов
+        assertThat(attempts.subList(0, 3))
+                .containsExactly("bad@example.com", "good1@example.com", "good2@example.com");
+
+        ConsumerRecord<String, UserEvent> deadLetter = readDeadLetter();
+        assertThat(deadLetter.value().getUserEmail()).isEqualTo("bad@example.com");
+        assertThat(new String(deadLetter.headers().lastHeader(KafkaHeaders.EXCEPTION_MESSAGE).value(),
+                StandardCharsets.UTF_8)).contains("SMTP rejected bad@example.com");
+        assertThat(deadLetter.headers().lastHeader("retry_topic-attempts")).isNotNull();
+
+        smtpDown.set(false);
+        ResponseEntity<String> response = restTemplate.postForEntity(
+                "/api/notifications/dlt/replay?limit=10", null, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("Replayed events: 1");
+        verify(emailService, timeout(10_000).times(4)).sendEmail(eq("bad@example.com"), anyString(), anyString());
+    }
+
+    private ConsumerRecord<String, UserEvent> readDeadLetter() {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("dlt-test", "false", embeddedKafka);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (Consumer<String, UserEvent> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new UserEventDeserializer()).createConsumer()) {
+            consumer.subscribe(List.of("user-events-dlt"));
+            return KafkaTestUtils.getSingleRecord(consumer, "user-events-dlt", Duration.ofSeconds(15));
+        }
+    }
+
+    private UserEvent event(Long userId, String email) {
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_CREATED, userId, email, "User " + userId,
+                LocalDateTime.now());
+        event.setEventId(UUID.randomUUID());
+        return event;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.notificationservice.integration;
+
+import com.example.events.UserEvent;
+import com.example.events.UserEventSerializer;
+import com.example.notificationservice.service.EmailService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Нечитаемая запись уходит в DLT исходными байтами и не останавливает партицию.
+ */
+@SpringBootTest
+@EmbeddedKafka(partitions = 1, topics = {"user-events"})
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "notification.kafka.mode=record",
+        "notification.kafka.retry.partitions=1"
+})
+class MalformedRecordIntegrationTest {
+
+    private static final byte[] GARBAGE = "not-a-user-event".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @MockBean
+    private EmailService emailService;
+
+    @Test
+    void malformedRecord_ShouldGoToDltAsIsAndNotBlockFollowingEvents() throws Exception {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(embeddedKafka);
+        try (Producer<String, byte[]> producer = new DefaultKafkaProducerFactory<>(producerProps,
+                new StringSerializer(), new ByteArraySerializer()).createProducer()) {
+            producer.send(new ProducerRecord<>("user-events", "1", GARBAGE)).get();
+            producer.send(new ProducerRecord<>("user-events", "2", validEvent())).get();
+        }
+
+        verify(emailService, timeout(15_000)).sendEmail(eq("good@example.com"), anyString(), anyString());
+
+        List<ConsumerRecord<String, byte[]>> deadLetters = readDeadLetters();
+        assertThat(deadLetters).hasSize(1);
+        ConsumerRecord<String, byte[]> deadLetter = deadLetters.get(0);
+        assertThat(deadLetter.value()).isEqualTo(GARBAGE);
+        assertThat(new String(deadLetter.headers().lastHeader(KafkaHeaders.EXCEPTION_CAUSE_FQCN).value(),
+                StandardCharsets.UTF_8)).isEqualTo(DeserializationException.class.getName());
+    }
+
+    // Читаем DLT до тишины: запись не должна возвращаться туда повторно из обработчика DLT
+    private List<ConsumerRecord<String, byte[]>> readDeadLetters() {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("malformed-dlt-test", "false", embeddedKafka);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+        try (Consumer<String, byte[]> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new ByteArrayDeserializer()).createConsumer()) {
+            consumer.subscribe(List.of("user-events-dlt"));
+            long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+            int quietPolls = 0;
+            while (System.nanoTime() < deadline && (records.isEmpty() || quietPolls < 3)) {
+                ConsumerRecords<String, byte[]> polled = consumer.poll(Duration.ofSeconds(1));
+                polled.forEach(records::add);
+                quietPolls = polled.isEmpty() ? quietPolls + 1 : 0;
+            }
+        }
+        return records;
+    }
+
+    private static byte[] validEvent() {
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_CREATED, 2L, "good@example.com", "User 2",
+                LocalDateTime.now());
+        event.setEventId(UUID.randomUUID());
+        return new UserEventSerializer().serialize("user-events", event);
+    }
+}
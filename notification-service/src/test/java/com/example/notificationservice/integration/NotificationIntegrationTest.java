@@ -1,6 +1,6 @@
 package com.example.notificationservice.integration;
 
-import com.example.notificationservice.event.UserEvent;
+import com.example.events.UserEvent;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -44,7 +44,7 @@ class NotificationIntegrationTest {
     @Test
     void testKafkaUserCreatedEvent() {
         UserEvent event = new UserEvent();
-        event.setEventType("USER_CREATED");
+        event.setEventType(UserEvent.EventType.USER_CREATED);
         event.setUserId(1L);
         event.setUserEmail("JUST_PLACE_HERE@gmail.com");
         event.setUserName("Test User");
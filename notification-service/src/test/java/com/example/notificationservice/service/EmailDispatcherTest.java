@@ -0,0 +1,210 @@
+package com.example.notificationservice.service;
+
+import com.example.notificationservice.config.SmtpProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EmailDispatcherTest {
+
+    private final EmailService emailService = mock(EmailService.class);
+    private final KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+    private final MessageListenerContainer container = mock(MessageListenerContainer.class);
+
+    private EmailDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void dispatch_SlowSmtp_SendsConcurrently() throws Exception {
+        CountDownLatch allStarted = new CountDownLatch(10);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            allStarted.countDown();
+            release.await();
+            return null;
+        }).when(emailService).sendEmail(anyString(), anyString(), anyString());
+        dispatcher = start(100, 16);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(dispatcher.dispatch((long) i, new EmailMessage("user" + i + "@example.com", "s", "t")));
+        }
+
+        // Все 10 писем отправляются одновременно, хотя ни одно ещё не завершено
+        assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+        assertTrue(futures.stream().noneMatch(CompletableFuture::isDone));
+
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).get(5, TimeUnit.SECONDS);
+        assertEquals(0, dispatcher.getInFlight());
+    }
+
+    @Test
+    void dispatch_SameKey_SendsInOrder() throws Exception {
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            sent.add(invocation.getArgument(2));
+            return null;
+        }).when(emailService).sendEmail(anyString(), anyString(), anyString());
+        dispatcher = start(100, 16);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            // Два пользователя вперемешку: порядок должен сохраниться внутри каждого
+            long userId = i % 2;
+            String text = userId + ":" + i;
+            expected.add(text);
+            futures.add(dispatcher.dispatch(userId, new EmailMessage("user" + userId + "@example.com", "s", text)));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(expected.stream().filter(t -> t.startsWith("0:")).toList(),
+                sent.stream().filter(t -> t.startsWith("0:")).toList());
+        assertEquals(expected.stream().filter(t -> t.startsWith("1:")).toList(),
+                sent.stream().filter(t -> t.startsWith("1:")).toList());
+    }
+
+    @Test
+    void dispatch_HotKey_UsesOneWorkerAndDoesNotBlockOtherKeys() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger hotConcurrent = new AtomicInteger();
+        AtomicInteger hotPeak = new AtomicInteger();
+        doAnswer(invocation -> {
+            hotPeak.accumulateAndGet(hotConcurrent.incrementAndGet(), Math::max);
+            release.await();
+            hotConcurrent.decrementAndGet();
+            return null;
+        }).when(emailService).sendEmail(eq("hot@example.com"), anyString(), anyString());
+        dispatcher = start(20, 4);
+
+        // Больше писем одного пользователя, чем досталось бы ему при делении ёмкости между потоками
+        List<CompletableFuture<Void>> hot = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            hot.add(dispatcher.dispatch(0L, new EmailMessage("hot@example.com", "s", "t" + i)));
+        }
+        CompletableFuture<Void> other = dispatcher.dispatch(1L, new EmailMessage("other@example.com", "s", "t"));
+
+        other.get(5, TimeUnit.SECONDS);
+        assertEquals(12, dispatcher.getInFlight());
+        release.countDown();
+        CompletableFuture.allOf(hot.toArray(CompletableFuture<?>[]::new)).get(5, TimeUnit.SECONDS);
+        assertEquals(1, hotPeak.get());
+    }
+
+    @Test
+    void dispatch_SendFails_CompletesExceptionally() {
+        doThrow(new RuntimeException("SMTP down"))
+                .when(emailService).sendEmail(anyString(), anyString(), anyString());
+        dispatcher = start(10, 2);
+
+        CompletableFuture<Void> future = dispatcher.dispatch(1L, new EmailMessage("a@example.com", "s", "t"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertEquals("SMTP down", e.getCause().getMessage());
+    }
+
+    @Test
+    void stop_PausesListenersAndDrainsInFlightEmails() throws Exception {
+        AtomicInteger sent = new AtomicInteger();
+        doAnswer(invocation -> {
+            Thread.sleep(100);
+            sent.incrementAndGet();
+            return null;
+        }).when(emailService).sendEmail(anyString(), anyString(), anyString());
+        dispatcher = start(100, 4);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(dispatcher.dispatch((long) i, new EmailMessage("user" + i + "@example.com", "s", "t")));
+        }
+        dispatcher.stop();
+
+        verify(container).pause();
+        assertEquals(20, sent.get());
+        assertTrue(futures.stream().allMatch(f -> f.isDone() && !f.isCompletedExceptionally()));
+        assertFalse(dispatcher.isRunning());
+
+        CompletableFuture<Void> late = dispatcher.dispatch(1L, new EmailMessage("late@example.com", "s", "t"));
+        ExecutionException e = assertThrows(ExecutionException.class, late::get);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    @Test
+    void stop_SendWaitingForSmtpSlot_RejectedForRedelivery() throws Exception {
+        SmtpProperties.Limits limits = new SmtpProperties.Limits();
+        limits.setInitialConcurrency(1);
+        limits.setMinConcurrency(1);
+        limits.setMaxConcurrency(1);
+        SmtpThrottle throttle = new SmtpThrottle("relay", limits, new SimpleMeterRegistry());
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch never = new CountDownLatch(1);
+        // Первое письмо занимает единственный слот и висит, второе ждёт слот в дросселе.
+        // Как и сокетный ввод-вывод, зависшая отправка реагирует на прерывание не сразу
+        doAnswer(invocation -> throttle.execute(() -> {
+            firstStarted.countDown();
+            try {
+                never.await();
+            } catch (InterruptedException e) {
+                sleepQuietly(300);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("SMTP send interrupted", e);
+            }
+            return null;
+        })).when(emailService).sendEmail(eq("first@example.com"), anyString(), anyString());
+        doAnswer(invocation -> throttle.execute(() -> null))
+                .when(emailService).sendEmail(eq("second@example.com"), anyString(), anyString());
+        when(registry.getListenerContainers()).thenReturn(List.of(container));
+        dispatcher = new EmailDispatcher(emailService, registry, 10, 2, 200);
+        dispatcher.start();
+
+        dispatcher.dispatch(0L, new EmailMessage("first@example.com", "s", "t"));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> waiting = dispatcher.dispatch(1L, new EmailMessage("second@example.com", "s", "t"));
+        dispatcher.stop();
+
+        // Письмо не отправлялось: консьюмер должен вернуть событие на повторную доставку, а не в DLT
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private EmailDispatcher start(int capacity, int workers) {
+        when(registry.getListenerContainers()).thenReturn(List.of(container));
+        EmailDispatcher started = new EmailDispatcher(emailService, registry, capacity, workers, 10_000);
+        started.start();
+        return started;
+    }
+}
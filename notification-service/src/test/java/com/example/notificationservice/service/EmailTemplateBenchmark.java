@@ -0,0 +1,59 @@
+package com.example.notificationservice.service;
+
+import com.example.events.UserEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: прежняя сборка письма через if/else и String.format против {@link EmailTemplateRegistry}.
+ * Запускается из {@link EmailTemplateBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    private UserEvent event;
+    private EmailTemplateRegistry registry;
+
+    @Setup
+    public void setUp() {
+        event = new UserEvent(UserEvent.EventType.USER_CREATED, 1_048_576L,
+                "ivan.petrov@example.com", "Иван Петров", LocalDateTime.now());
+        registry = new EmailTemplateRegistry("classpath*:email-templates/*.properties", Locale.forLanguageTag("ru"));
+    }
+
+    @Benchmark
+    public EmailMessage stringFormat() {
+        String email = event.getUserEmail();
+        String userName = event.getUserName();
+        if (event.getEventType() == UserEvent.EventType.USER_CREATED) {
+            return new EmailMessage(email, "Добро пожаловать!",
+                    String.format("Здравствуйте, %s! Ваш аккаунт был создан.", userName));
+        } else if (event.getEventType() == UserEvent.EventType.USER_DELETED) {
+            return new EmailMessage(email, "Аккаунт удален",
+                    String.format("Здравствуйте, %s! Ваш аккаунт был удален.", userName));
+        }
+        return null;
+    }
+
+    @Benchmark
+    public EmailMessage compiledTemplate() {
+        return registry.render(event);
+    }
+}
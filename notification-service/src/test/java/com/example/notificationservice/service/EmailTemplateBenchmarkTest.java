@@ -0,0 +1,21 @@
+package com.example.notificationservice.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH-сравнение отрисовки письма. Запуск: mvn test -Dsurefire.excludedGroups= -Dgroups=benchmark
+ */
+@Tag("benchmark")
+class EmailTemplateBenchmarkTest {
+
+    @Test
+    void compareStringFormatAndCompiledTemplate() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(EmailTemplateBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.notificationservice.service;
+
+import com.example.events.UserEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailTemplateRegistryTest {
+
+    private final EmailTemplateRegistry registry =
+            new EmailTemplateRegistry("classpath*:email-templates/*.properties", Locale.forLanguageTag("ru"));
+
+    @Test
+    void render_UserCreated_MatchesPreviousFormat() {
+        EmailMessage message = registry.render(event(UserEvent.EventType.USER_CREATED));
+
+        assertEquals("ivan@example.com", message.to());
+        assertEquals("Добро пожаловать!", message.subject());
+        assertEquals(String.format("Здравствуйте, %s! Ваш аккаунт был создан.", "Иван"), message.text());
+    }
+
+    @Test
+    void render_UserDeleted_MatchesPreviousFormat() {
+        EmailMessage message = registry.render(event(UserEvent.EventType.USER_DELETED));
+
+        assertEquals("Аккаунт удален", message.subject());
+        assertEquals(String.format("Здравствуйте, %s! Ваш аккаунт был удален.", "Иван"), message.text());
+    }
+
+    @Test
+    void render_OtherLocale_UsesItsTemplates() {
+        EmailMessage message = registry.render(event(UserEvent.EventType.USER_CREATED), Locale.ENGLISH);
+
+        assertEquals("Welcome!", message.subject());
+        assertEquals("Hello, Иван! Your account has been created.", message.text());
+    }
+
+    @Test
+    void render_UnknownLocale_FallsBackToDefault() {
+        EmailMessage message = registry.render(event(UserEvent.EventType.USER_CREATED), Locale.GERMAN);
+
+        assertEquals("Добро пожаловать!", message.subject());
+    }
+
+    @Test
+    void render_NoEventType_ReturnsNull() {
+        assertNull(registry.render(new UserEvent()));
+    }
+
+    @Test
+    void constructor_UnknownPlaceholder_FailsAtStartup() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+                new EmailTemplateRegistry("classpath*:email-templates-invalid/*.properties", Locale.forLanguageTag("ru")));
+
+        assertTrue(e.getMessage().contains("{userNickname}"));
+    }
+
+    private UserEvent event(UserEvent.EventType type) {
+        return new UserEvent(type, 1L, "ivan@example.com", "Иван", LocalDateTime.now());
+    }
+}
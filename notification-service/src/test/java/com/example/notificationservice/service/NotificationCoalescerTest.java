@@ -0,0 +1,151 @@
+package com.example.notificationservice.service;
+
+import com.example.events.UserEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationCoalescerTest {
+
+    private final EmailDispatcher dispatcher = mock(EmailDispatcher.class);
+    private final MutableClock clock = new MutableClock();
+
+    private NotificationCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        when(dispatcher.dispatch(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        coalescer = new NotificationCoalescer(dispatcher, clock, Duration.ofSeconds(5), "Digest");
+        coalescer.start();
+    }
+
+    @Test
+    void submit_SameRecipientWithinWindow_SendsOneDigest() {
+        CompletableFuture<Void> first = coalescer.submit(1L, event(UserEvent.EventType.USER_CREATED, 1L), message("a@example.com", "Hello"));
+        CompletableFuture<Void> second = coalescer.submit(1L, event(UserEvent.EventType.USER_CREATED, 1L), message("A@example.com", "Again"));
+
+        coalescer.flushDue();
+        verifyNoInteractions(dispatcher);
+        assertFalse(first.isDone());
+
+        clock.advance(Duration.ofSeconds(5));
+        coalescer.flushDue();
+
+        ArgumentCaptor<EmailMessage> sent = ArgumentCaptor.forClass(EmailMessage.class);
+        verify(dispatcher).dispatch(eq(1L), sent.capture());
+        assertEquals("Digest", sent.getValue().subject());
+        assertEquals("Hello\n\nAgain", sent.getValue().text());
+        assertTrue(first.isDone() && second.isDone());
+
+        NotificationCoalescer.CoalescingStats stats = coalescer.getStats();
+        assertEquals(2, stats.events());
+        assertEquals(1, stats.emailsSent());
+        assertEquals(1, stats.sendsSaved());
+    }
+
+    @Test
+    void submit_CreatedThenDeleted_SendsNothing() {
+        CompletableFuture<Void> created = coalescer.submit(7L, event(UserEvent.EventType.USER_CREATED, 7L), message("u7@example.com", "Welcome"));
+        CompletableFuture<Void> deleted = coalescer.submit(7L, event(UserEvent.EventType.USER_DELETED, 7L), message("u7@example.com", "Bye"));
+
+        assertTrue(created.isDone() && deleted.isDone());
+        clock.advance(Duration.ofSeconds(10));
+        coalescer.flushDue();
+
+        verifyNoInteractions(dispatcher);
+        assertEquals(2, coalescer.getStats().cancelledByPairs());
+        assertEquals(2, coalescer.getStats().sendsSaved());
+    }
+
+    @Test
+    void submit_SingleEmail_SentUnchanged() {
+        EmailMessage message = message("b@example.com", "Only");
+        coalescer.submit(2L, event(UserEvent.EventType.USER_DELETED, 2L), message);
+
+        clock.advance(Duration.ofSeconds(5));
+        coalescer.flushDue();
+
+        verify(dispatcher).dispatch(2L, message);
+    }
+
+    @Test
+    void submit_DispatchFails_FailsEveryMergedEvent() {
+        when(dispatcher.dispatch(any(), any())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("SMTP down")));
+        CompletableFuture<Void> first = coalescer.submit(3L, event(UserEvent.EventType.USER_CREATED, 3L), message("c@example.com", "1"));
+        CompletableFuture<Void> second = coalescer.submit(3L, event(UserEvent.EventType.USER_CREATED, 3L), message("c@example.com", "2"));
+
+        clock.advance(Duration.ofSeconds(5));
+        coalescer.flushDue();
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+    }
+
+    @Test
+    void stop_FlushesPendingAndBypassesWindowAfterwards() {
+        CompletableFuture<Void> pending = coalescer.submit(4L, event(UserEvent.EventType.USER_CREATED, 4L), message("d@example.com", "Pending"));
+
+        coalescer.stop();
+        assertTrue(pending.isDone());
+
+        EmailMessage late = message("e@example.com", "Late");
+        coalescer.submit(5L, event(UserEvent.EventType.USER_CREATED, 5L), late);
+        verify(dispatcher).dispatch(5L, late);
+    }
+
+    @Test
+    void submit_ZeroWindow_PassesThrough() {
+        NotificationCoalescer disabled = new NotificationCoalescer(dispatcher, clock, Duration.ZERO, "Digest");
+        disabled.start();
+        EmailMessage message = message("f@example.com", "Now");
+
+        disabled.submit(6L, event(UserEvent.EventType.USER_CREATED, 6L), message);
+
+        verify(dispatcher).dispatch(6L, message);
+        assertEquals(0, disabled.getStats().sendsSaved());
+    }
+
+    private static UserEvent event(UserEvent.EventType type, Long userId) {
+        return new UserEvent(type, userId, "user" + userId + "@example.com", "User " + userId, LocalDateTime.now());
+    }
+
+    private static EmailMessage message(String to, String text) {
+        return new EmailMessage(to, "Subject", text);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-03-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.notificationservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessedEventStoreTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void tryClaim_Duplicate_ReturnsFalse() {
+        ProcessedEventStore store = new ProcessedEventStore(clock, Duration.ofHours(1), 100, null);
+        UUID eventId = UUID.randomUUID();
+
+        assertTrue(store.tryClaim(eventId));
+        store.complete(eventId);
+
+        assertFalse(store.tryClaim(eventId));
+        assertTrue(store.tryClaim(null));
+    }
+
+    @Test
+    void release_FailedSend_AllowsRetry() {
+        ProcessedEventStore store = new ProcessedEventStore(clock, Duration.ofHours(1), 100, null);
+        UUID eventId = UUID.randomUUID();
+
+        assertTrue(store.tryClaim(eventId));
+        // Пока письмо отправляется, повторная доставка тоже отсекается
+        assertFalse(store.tryClaim(eventId));
+        store.release(eventId);
+
+        assertTrue(store.tryClaim(eventId));
+    }
+
+    @Test
+    void tryClaim_AfterTtl_AcceptsAgain() {
+        ProcessedEventStore store = new ProcessedEventStore(clock, Duration.ofMinutes(10), 100, null);
+        UUID eventId = UUID.randomUUID();
+        store.tryClaim(eventId);
+        store.complete(eventId);
+
+        clock.advance(Duration.ofMinutes(11));
+
+        assertTrue(store.tryClaim(eventId));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void tryClaim_OverMaxEntries_EvictsOldest() {
+        ProcessedEventStore store = new ProcessedEventStore(clock, Duration.ofHours(1), 3, null);
+        UUID oldest = UUID.randomUUID();
+        store.tryClaim(oldest);
+        store.complete(oldest);
+        for (int i = 0; i < 3; i++) {
+            UUID eventId = UUID.randomUUID();
+            store.tryClaim(eventId);
+            store.complete(eventId);
+        }
+
+        assertEquals(3, store.size());
+        assertTrue(store.tryClaim(oldest));
+    }
+
+    @Test
+    void tryClaim_OverMaxEntries_KeepsInProgressClaims() {
+        ProcessedEventStore store = new ProcessedEventStore(clock, Duration.ofHours(1), 2, null);
+        UUID inProgress = UUID.randomUUID();
+        store.tryClaim(inProgress);
+        for (int i = 0; i < 5; i++) {
+            UUID eventId = UUID.randomUUID();
+            store.tryClaim(eventId);
+            store.complete(eventId);
+        }
+
+        // Письмо по первому событию ещё отправляется - повторная доставка отсекается
+        assertFalse(store.tryClaim(inProgress));
+        assertEquals(3, store.size());
+
+        store.complete(inProgress);
+        assertEquals(2, store.size());
+        assertFalse(store.tryClaim(inProgress));
+    }
+
+    @Test
+    void flushAndLoad_RestoresCompletedIds(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("dedup/processed-events.txt");
+        ProcessedEventStore store = new ProcessedEventStore(clock, Duration.ofHours(1), 100, file);
+        UUID completed = UUID.randomUUID();
+        UUID inProgress = UUID.randomUUID();
+        store.tryClaim(completed);
+        store.complete(completed);
+        store.tryClaim(inProgress);
+
+        store.flush();
+        assertEquals(1, Files.readAllLines(file).size());
+
+        ProcessedEventStore restarted = new ProcessedEventStore(clock, Duration.ofHours(1), 100, file);
+        restarted.load();
+
+        assertFalse(restarted.tryClaim(completed));
+        assertTrue(restarted.tryClaim(inProgress));
+    }
+
+    @Test
+    void load_SkipsExpiredIds(@TempDir Path dir) {
+        Path file = dir.resolve("processed-events.txt");
+        ProcessedEventStore store = new ProcessedEventStore(clock, Duration.ofMinutes(10), 100, file);
+        UUID eventId = UUID.randomUUID();
+        store.tryClaim(eventId);
+        store.complete(eventId);
+        store.flush();
+
+        clock.advance(Duration.ofMinutes(11));
+        ProcessedEventStore restarted = new ProcessedEventStore(clock, Duration.ofMinutes(10), 100, file);
+        restarted.load();
+
+        assertEquals(0, restarted.size());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-03-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.notificationservice.service;
+
+import com.example.notificationservice.config.SmtpProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtpThrottleTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void execute_TransientReject_CountsThrottleAndHalvesLimit() {
+        SmtpThrottle throttle = new SmtpThrottle("relay", limits(8, 1, 16), meterRegistry);
+
+        assertThrows(MailSendException.class, () -> throttle.execute(() -> {
+            throw rejected(421, "421 4.7.0 Try again later");
+        }));
+
+        assertEquals(4, throttle.getConcurrencyLimit());
+        assertEquals(1.0, meterRegistry.get("notification.smtp.throttled").tag("host", "relay").counter().count());
+        assertEquals(4.0, meterRegistry.get("notification.smtp.concurrency.limit").gauge().value());
+        assertEquals(1, meterRegistry.get("notification.smtp.send").tag("outcome", "throttled").timer().count());
+    }
+
+    @Test
+    void execute_PermanentFailure_KeepsLimit() {
+        SmtpThrottle throttle = new SmtpThrottle("relay", limits(8, 1, 16), meterRegistry);
+
+        assertThrows(MailSendException.class, () -> throttle.execute(() -> {
+            throw rejected(550, "550 5.1.1 User unknown");
+        }));
+
+        assertEquals(8, throttle.getConcurrencyLimit());
+        assertEquals(0.0, throttle.getThrottledCount());
+        assertEquals(1, meterRegistry.get("notification.smtp.send").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    void execute_SaturatedAndHealthy_LimitClimbs() throws Exception {
+        SmtpThrottle throttle = new SmtpThrottle("relay", limits(2, 1, 16), meterRegistry);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        CountDownLatch done = new CountDownLatch(400);
+        for (int i = 0; i < 400; i++) {
+            Thread.startVirtualThread(() -> {
+                throttle.execute(() -> {
+                    peak.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    concurrent.decrementAndGet();
+                    return null;
+                });
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertTrue(throttle.getConcurrencyLimit() > 2, "limit: " + throttle.getConcurrencyLimit());
+        assertTrue(peak.get() <= 16);
+        assertEquals(400, meterRegistry.get("notification.smtp.send").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void execute_NoRateConfigured_OnlyConcurrencyLimits() {
+        SmtpThrottle throttle = new SmtpThrottle("relay", new SmtpProperties.Limits(), meterRegistry);
+        AtomicInteger sends = new AtomicInteger();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            throttle.execute(sends::incrementAndGet);
+        }
+
+        assertEquals(1000, sends.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertNull(meterRegistry.find("notification.smtp.permits.available").gauge());
+    }
+
+    @Test
+    void execute_RateWithoutBurst_AllowsOneSecondOfSends() {
+        SmtpProperties.Limits limits = limits(4, 1, 16);
+        limits.setRatePerSecond(10);
+        SmtpThrottle throttle = new SmtpThrottle("relay", limits, meterRegistry);
+
+        assertEquals(10, throttle.getAvailablePermits());
+    }
+
+    @Test
+    void limitsFor_HostOverride_ReplacesDefaults() {
+        SmtpProperties properties = new SmtpProperties();
+        SmtpProperties.Limits relay = new SmtpProperties.Limits();
+        relay.setRatePerSecond(5);
+        properties.getHosts().put("smtp.example.com", relay);
+
+        assertSame(relay, properties.limitsFor("SMTP.example.com"));
+        assertSame(properties.getDefaults(), properties.limitsFor("other.example.com"));
+    }
+
+    @Test
+    void execute_InterruptedWhileWaitingForPermit_DoesNotSend() {
+        SmtpProperties.Limits limits = limits(4, 1, 16);
+        limits.setRatePerSecond(1);
+        limits.setBurst(1);
+        SmtpThrottle throttle = new SmtpThrottle("relay", limits, meterRegistry);
+        AtomicInteger sends = new AtomicInteger();
+        throttle.execute(sends::incrementAndGet);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(RejectedExecutionException.class, () -> throttle.execute(sends::incrementAndGet));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertEquals(1, sends.get());
+        assertEquals(4, throttle.getConcurrencyLimit());
+        assertEquals(0.0, meterRegistry.get("notification.smtp.in.flight").gauge().value());
+    }
+
+    @Test
+    void isTransientReject_ReadsReplyCodeFromSmtpExceptions() {
+        assertTrue(SmtpThrottle.isTransientReject(rejected(450, "450 4.2.1 Rate limited")));
+        assertTrue(SmtpThrottle.isTransientReject(new MailSendException(Map.of("message",
+                new SendFailedException("Invalid Addresses",
+                        new SMTPAddressFailedException(address(), "RCPT TO", 451, "451 4.3.0 Try later"))))));
+        assertTrue(SmtpThrottle.isTransientReject(new IllegalStateException("wrapper", rejected(421, "421 Bye"))));
+        assertFalse(SmtpThrottle.isTransientReject(rejected(554, "554 5.7.1 Rejected")));
+        // Текст с «4xx» без кода ответа временным отказом не считается
+        assertFalse(SmtpThrottle.isTransientReject(new MailSendException("421 messages sent before failure")));
+    }
+
+    private static MailSendException rejected(int code, String reply) {
+        return new MailSendException(Map.of("message",
+                new SMTPSendFailedException("DATA", code, reply, null, null, null, null)));
+    }
+
+    private static InternetAddress address() {
+        try {
+            return new InternetAddress("user@example.com");
+        } catch (AddressException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SmtpProperties.Limits limits(int initial, int min, int max) {
+        SmtpProperties.Limits limits = new SmtpProperties.Limits();
+        limits.setInitialConcurrency(initial);
+        limits.setMinConcurrency(min);
+        limits.setMaxConcurrency(max);
+        return limits;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.notificationservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private final AtomicLong nanos = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void reserve_WithinBurst_DoesNotWait() {
+        TokenBucket bucket = new TokenBucket(10, 3, nanos::get);
+
+        assertEquals(3, bucket.availablePermits());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.reserve());
+        }
+        assertEquals(0, bucket.availablePermits());
+    }
+
+    @Test
+    void reserve_BeyondBurst_WaitsOneIntervalPerPermit() {
+        TokenBucket bucket = new TokenBucket(10, 2, nanos::get);
+        bucket.reserve();
+        bucket.reserve();
+
+        assertEquals(100_000_000L, bucket.reserve());
+        assertEquals(200_000_000L, bucket.reserve());
+    }
+
+    @Test
+    void availablePermits_RefillAtRateUpToBurst() {
+        TokenBucket bucket = new TokenBucket(10, 5, nanos::get);
+        for (int i = 0; i < 5; i++) {
+            bucket.reserve();
+        }
+
+        nanos.addAndGet(200_000_000L);
+        assertEquals(2, bucket.availablePermits());
+
+        nanos.addAndGet(10_000_000_000L);
+        assertEquals(5, bucket.availablePermits());
+    }
+
+    @Test
+    void acquire_InterruptedWhileWaiting_Throws() {
+        TokenBucket bucket = new TokenBucket(1, 1);
+        bucket.reserve();
+
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedException.class, bucket::acquire);
+    }
+
+    @Test
+    void constructor_NonPositiveRate_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+    }
+}
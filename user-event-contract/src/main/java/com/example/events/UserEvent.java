@@ -1,18 +1,48 @@
-package com.example.user_service.event;
+package com.example.events;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
+import java.util.UUID;
 
+/**
+ * Событие об изменении пользователя, публикуемое user-service в топик user-events.
+ * На проводе кодируется {@link UserEventCodec}.
+ */
 public class UserEvent {
+    // Уникален для события и не меняется при повторных отправках; по нему потребители отсекают дубли
+    private UUID eventId;
     private EventType eventType;
     private Long userId;
     private String userEmail;
     private String userName;
     private LocalDateTime timestamp;
 
+    // Код типа пишется в сообщение вместо имени. Коды не переиспользуются и не меняются,
+    // новый тип получает следующий свободный код
     public enum EventType {
-        USER_CREATED,
-        USER_DELETED
+        // Тип, появившийся у производителя позже, чем у этого потребителя; такие события пропускаются
+        UNKNOWN(0),
+        USER_CREATED(1),
+        USER_DELETED(2);
+
+        private final int code;
+
+        EventType(int code) {
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public static EventType fromCode(int code) {
+            for (EventType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return UNKNOWN;
+        }
     }
 
     public UserEvent() {}
@@ -25,6 +55,14 @@ public class UserEvent {
         this.timestamp = timestamp;
     }
 
+    public UUID getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(UUID eventId) {
+        this.eventId = eventId;
+    }
+
     public EventType getEventType() {
         return eventType;
     }
@@ -70,7 +108,8 @@ public class UserEvent {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         UserEvent userEvent = (UserEvent) o;
-        return eventType == userEvent.eventType &&
+        return Objects.equals(eventId, userEvent.eventId) &&
+                eventType == userEvent.eventType &&
                 Objects.equals(userId, userEvent.userId) &&
                 Objects.equals(userEmail, userEvent.userEmail) &&
                 Objects.equals(userName, userEvent.userName) &&
@@ -79,13 +118,14 @@ public class UserEvent {
 
     @Override
     public int hashCode() {
-        return Objects.hash(eventType, userId, userEmail, userName, timestamp);
+        return Objects.hash(eventId, eventType, userId, userEmail, userName, timestamp);
     }
 
     @Override
     public String toString() {
         return "UserEvent{" +
-                "eventType=" + eventType +
+                "eventId=" + eventId +
+                ", eventType=" + eventType +
                 ", userId=" + userId +
                 ", userEmail='" + userEmail + '\'' +
                 ", userName='" + userName + '\'' +
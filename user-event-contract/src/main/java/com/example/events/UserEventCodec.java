@@ -0,0 +1,202 @@
+package com.example.events;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Компактный бинарный формат {@link UserEvent}.
+ * <pre>
+ * byte    версия формата (сейчас {@value #VERSION})
+ * byte    маска присутствующих полей
+ * byte    код типа события ({@link UserEvent.EventType#getCode()})
+ * varint  userId (zigzag)
+ * varint  timestamp, миллисекунды от эпохи по UTC (zigzag)
+ * string  userEmail: varint длина + UTF-8
+ * string  userName:  varint длина + UTF-8
+ * 16 байт eventId: старшие и младшие 64 бита UUID
+ * </pre>
+ * Отсутствующие (null) поля не пишутся. Время хранится с точностью до миллисекунд.
+ * Новые поля дописываются в конец под новым битом маски: старый декодер их просто не читает.
+ * Несовместимое изменение формата увеличивает версию; декодер отвергает незнакомые версии.
+ */
+public final class UserEventCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int HAS_TYPE = 1;
+    private static final int HAS_USER_ID = 1 << 1;
+    private static final int HAS_TIMESTAMP = 1 << 2;
+    private static final int HAS_EMAIL = 1 << 3;
+    private static final int HAS_NAME = 1 << 4;
+    private static final int HAS_EVENT_ID = 1 << 5;
+
+    private UserEventCodec() {
+    }
+
+    public static byte[] encode(UserEvent event) {
+        byte[] email = event.getUserEmail() == null ? null : event.getUserEmail().getBytes(StandardCharsets.UTF_8);
+        byte[] name = event.getUserName() == null ? null : event.getUserName().getBytes(StandardCharsets.UTF_8);
+
+        int flags = 0;
+        if (event.getEventType() != null) flags |= HAS_TYPE;
+        if (event.getUserId() != null) flags |= HAS_USER_ID;
+        if (event.getTimestamp() != null) flags |= HAS_TIMESTAMP;
+        if (email != null) flags |= HAS_EMAIL;
+        if (name != null) flags |= HAS_NAME;
+        if (event.getEventId() != null) flags |= HAS_EVENT_ID;
+
+        // 3 байта заголовка, до 10 байт на каждое varint-число и длины строк
+        int capacity = 3 + 10 + 10
+                + (email == null ? 0 : 5 + email.length)
+                + (name == null ? 0 : 5 + name.length)
+                + 16;
+        Writer out = new Writer(capacity);
+        out.writeByte(VERSION);
+        out.writeByte(flags);
+        out.writeByte(event.getEventType() == null ? 0 : event.getEventType().getCode());
+        if (event.getUserId() != null) {
+            out.writeVarLong(zigzag(event.getUserId()));
+        }
+        if (event.getTimestamp() != null) {
+            out.writeVarLong(zigzag(event.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli()));
+        }
+        if (email != null) {
+            out.writeBytes(email);
+        }
+        if (name != null) {
+            out.writeBytes(name);
+        }
+        if (event.getEventId() != null) {
+            out.writeLong(event.getEventId().getMostSignificantBits());
+            out.writeLong(event.getEventId().getLeastSignificantBits());
+        }
+        return out.toByteArray();
+    }
+
+    public static UserEvent decode(byte[] data) {
+        Reader in = new Reader(data);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported UserEvent format version: " + version);
+        }
+        int flags = in.readByte();
+        int typeCode = in.readByte();
+
+        UserEvent event = new UserEvent();
+        if ((flags & HAS_TYPE) != 0) {
+            event.setEventType(UserEvent.EventType.fromCode(typeCode));
+        }
+        if ((flags & HAS_USER_ID) != 0) {
+            event.setUserId(unzigzag(in.readVarLong()));
+        }
+        if ((flags & HAS_TIMESTAMP) != 0) {
+            long millis = unzigzag(in.readVarLong());
+            event.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC));
+        }
+        if ((flags & HAS_EMAIL) != 0) {
+            event.setUserEmail(in.readString());
+        }
+        if ((flags & HAS_NAME) != 0) {
+            event.setUserName(in.readString());
+        }
+        if ((flags & HAS_EVENT_ID) != 0) {
+            event.setEventId(new UUID(in.readLong(), in.readLong()));
+        }
+        return event;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return position == buffer.length ? buffer : Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated UserEvent message");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in UserEvent message");
+        }
+
+        String readString() {
+            long length = readVarLong();
+            if (length < 0 || length > data.length - position) {
+                throw new IllegalArgumentException("Truncated UserEvent message");
+            }
+            String value = new String(data, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.events;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka-десериализатор значения топика user-events в формате {@link UserEventCodec}.
+ */
+public class UserEventDeserializer implements Deserializer<UserEvent> {
+
+    @Override
+    public UserEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return UserEventCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Can't deserialize UserEvent from topic " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.events;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka-сериализатор значения топика user-events в формате {@link UserEventCodec}.
+ */
+public class UserEventSerializer implements Serializer<UserEvent> {
+
+    @Override
+    public byte[] serialize(String topic, UserEvent event) {
+        return event == null ? null : UserEventCodec.encode(event);
+    }
+}
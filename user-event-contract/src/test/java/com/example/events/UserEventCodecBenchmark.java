@@ -0,0 +1,94 @@
+package com.example.events;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: прежний JSON-путь (JsonSerializer/JsonDeserializer из spring-kafka с type mapping)
+ * против {@link UserEventSerializer}/{@link UserEventDeserializer}.
+ * Запускается из {@link UserEventCodecBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserEventCodecBenchmark {
+
+    static final String TOPIC = "user-events";
+    static final String TYPE_MAPPING = "userEvent:com.example.events.UserEvent";
+
+    private UserEvent event;
+    private JsonSerializer<UserEvent> jsonSerializer;
+    private JsonDeserializer<UserEvent> jsonDeserializer;
+    private UserEventSerializer binarySerializer;
+    private UserEventDeserializer binaryDeserializer;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        event = sampleEvent();
+        jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.configure(Map.of(JsonSerializer.TYPE_MAPPINGS, TYPE_MAPPING), false);
+        jsonDeserializer = new JsonDeserializer<>();
+        jsonDeserializer.configure(Map.of(
+                JsonDeserializer.TRUSTED_PACKAGES, "*",
+                JsonDeserializer.VALUE_DEFAULT_TYPE, UserEvent.class.getName()), false);
+        binarySerializer = new UserEventSerializer();
+        binaryDeserializer = new UserEventDeserializer();
+        json = jsonSerializer.serialize(TOPIC, event);
+        binary = binarySerializer.serialize(TOPIC, event);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jsonSerializer.close();
+        jsonDeserializer.close();
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public UserEvent jsonDeserialize() {
+        return jsonDeserializer.deserialize(TOPIC, json);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binarySerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public UserEvent binaryDeserialize() {
+        return binaryDeserializer.deserialize(TOPIC, binary);
+    }
+
+    static UserEvent sampleEvent() {
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_CREATED, 1_048_576L,
+                "ivan.petrov@example.com", "Иван Петров", LocalDateTime.of(2024, 3, 1, 12, 30, 15));
+        event.setEventId(UUID.fromString("6f1c2a7e-3b1d-4c55-9a0e-2d7f4b8c9e01"));
+        return event;
+    }
+}
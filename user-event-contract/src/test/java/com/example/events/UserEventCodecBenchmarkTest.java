@@ -0,0 +1,37 @@
+package com.example.events;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+/**
+ * Размер сообщения и JMH-замеры CPU для JSON и бинарного формата.
+ * Запуск: mvn test -Dsurefire.excludedGroups= -Dgroups=benchmark
+ */
+@Tag("benchmark")
+class UserEventCodecBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEventCodecBenchmarkTest.class);
+
+    @Test
+    void compareJsonAndBinary() throws Exception {
+        UserEvent event = UserEventCodecBenchmark.sampleEvent();
+        try (JsonSerializer<UserEvent> jsonSerializer = new JsonSerializer<>()) {
+            jsonSerializer.configure(Map.of(JsonSerializer.TYPE_MAPPINGS, UserEventCodecBenchmark.TYPE_MAPPING), false);
+            log.info("JSON:   {} bytes", jsonSerializer.serialize(UserEventCodecBenchmark.TOPIC, event).length);
+        }
+        log.info("Binary: {} bytes", UserEventCodec.encode(event).length);
+
+        Options options = new OptionsBuilder()
+                .include(UserEventCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
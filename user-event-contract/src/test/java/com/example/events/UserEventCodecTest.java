@@ -0,0 +1,120 @@
+package com.example.events;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserEventCodecTest {
+
+    private final UserEventSerializer serializer = new UserEventSerializer();
+    private final UserEventDeserializer deserializer = new UserEventDeserializer();
+
+    @Test
+    void roundTrip_ShouldPreserveAllFields() {
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_DELETED, 123456789L,
+                "иван@example.com", "Иван Петров", LocalDateTime.of(2024, 3, 1, 12, 30, 15, 250_000_000));
+        event.setEventId(UUID.randomUUID());
+
+        UserEvent decoded = deserializer.deserialize("user-events", serializer.serialize("user-events", event));
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void roundTrip_ShouldKeepNullFieldsNull() {
+        UserEvent event = new UserEvent();
+        event.setUserId(-5L);
+
+        UserEvent decoded = UserEventCodec.decode(UserEventCodec.encode(event));
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void decode_ShouldReadMessageWithoutEventId() {
+        // Сообщение продюсера, который ещё не проставлял eventId: последние 16 байт и бит маски отсутствуют
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_CREATED, 7L, "a@b.c", "A", null);
+        event.setEventId(UUID.randomUUID());
+        byte[] withId = UserEventCodec.encode(event);
+        byte[] withoutId = Arrays.copyOf(withId, withId.length - 16);
+        withoutId[1] &= ~(1 << 5);
+
+        UserEvent decoded = UserEventCodec.decode(withoutId);
+
+        assertThat(decoded.getEventId()).isNull();
+        assertThat(decoded.getUserId()).isEqualTo(7L);
+    }
+
+    @Test
+    void encode_ShouldTruncateTimestampToMillis() {
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_CREATED, 1L, "a@b.c", "A",
+                LocalDateTime.of(2024, 3, 1, 12, 0, 0, 123_456_789));
+
+        UserEvent decoded = UserEventCodec.decode(UserEventCodec.encode(event));
+
+        assertThat(decoded.getTimestamp()).isEqualTo(LocalDateTime.of(2024, 3, 1, 12, 0, 0, 123_000_000));
+    }
+
+    @Test
+    void encode_ShouldBeSeveralTimesSmallerThanJson() {
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_CREATED, 1042L,
+                "user1042@example.com", "User 1042", LocalDateTime.now());
+        event.setEventId(UUID.randomUUID());
+
+        byte[] binary = UserEventCodec.encode(event);
+        byte[] json;
+        try (JsonSerializer<UserEvent> jsonSerializer = new JsonSerializer<>()) {
+            json = jsonSerializer.serialize("user-events", event);
+        }
+
+        assertThat(binary.length * 3).isLessThan(json.length);
+    }
+
+    @Test
+    void decode_ShouldMapUnknownTypeCodeToUnknown() {
+        byte[] data = UserEventCodec.encode(new UserEvent(UserEvent.EventType.USER_CREATED, 1L,
+                "user@example.com", "User", null));
+        data[2] = 42;
+
+        UserEvent decoded = UserEventCodec.decode(data);
+
+        assertThat(decoded.getEventType()).isEqualTo(UserEvent.EventType.UNKNOWN);
+        assertThat(decoded.getUserEmail()).isEqualTo("user@example.com");
+    }
+
+    @Test
+    void deserialize_ShouldRejectUnknownVersion() {
+        byte[] data = UserEventCodec.encode(new UserEvent(UserEvent.EventType.USER_CREATED, 1L, null, null, null));
+        data[0] = 2;
+
+        assertThatThrownBy(() -> deserializer.deserialize("user-events", data))
+                .isInstanceOf(SerializationException.class)
+                .hasRootCauseMessage("Unsupported UserEvent format version: 2");
+    }
+
+    @Test
+    void deserialize_ShouldRejectJsonPayload() {
+        byte[] json = "{\"eventType\":\"USER_CREATED\"}".getBytes();
+
+        assertThatThrownBy(() -> deserializer.deserialize("user-events", json))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void deserialize_ShouldRejectTruncatedMessage() {
+        byte[] data = UserEventCodec.encode(new UserEvent(UserEvent.EventType.USER_CREATED, 1L,
+                "user@example.com", "User", LocalDateTime.now()));
+        byte[] truncated = Arrays.copyOf(data, data.length - 3);
+
+        assertThatThrownBy(() -> deserializer.deserialize("user-events", truncated))
+                .isInstanceOf(SerializationException.class)
+                .hasRootCauseMessage("Truncated UserEvent message");
+    }
+}
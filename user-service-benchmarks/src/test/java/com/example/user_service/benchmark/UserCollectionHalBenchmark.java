@@ -0,0 +1,60 @@
+package com.example.user_service.benchmark;
+
+import com.example.user_service.dto.UserResponse;
+import com.example.user_service.service.UserLinkFactory;
+import com.example.user_service.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: HAL-сериализация коллекции пользователей (_embedded.userResponseList) размером size.
+ * Запускается из {@link UserServiceBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserCollectionHalBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int size;
+
+    private CollectionModel<EntityModel<UserResponse>> collection;
+    private ObjectMapper halMapper;
+
+    @Setup
+    public void setUp() {
+        UserService userService = UserServiceBenchmark.userService(UserServiceBenchmark::user);
+        UserLinkFactory links = new UserLinkFactory();
+        List<EntityModel<UserResponse>> users = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            users.add(userService.getUserById(id));
+        }
+        collection = CollectionModel.of(users, List.<Link>of(links.allUsers(), links.create()));
+        halMapper = UserServiceBenchmark.halObjectMapper();
+    }
+
+    @Benchmark
+    public byte[] halCollection() throws Exception {
+        return halMapper.writeValueAsBytes(collection);
+    }
+}
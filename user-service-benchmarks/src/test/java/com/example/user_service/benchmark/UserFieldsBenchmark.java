@@ -0,0 +1,131 @@
+package com.example.user_service.benchmark;
+
+import com.example.user_service.model.User;
+import com.example.user_service.repository.UserProjectionRepositoryImpl;
+import com.example.user_service.repository.UserRepository;
+import com.example.user_service.service.EmailBloomFilter;
+import com.example.user_service.service.UserEventOutbox;
+import com.example.user_service.service.UserFields;
+import com.example.user_service.service.UserLinkFactory;
+import com.example.user_service.service.UserResponseCache;
+import com.example.user_service.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * JMH: страница из PAGE пользователей целиком и с ?fields=id,email - чтение из H2
+ * (сущности против tuple-проекции) и весь путь сервиса с HAL-сериализацией.
+ * Размеры ответов печатаются при старте. Запускается из {@link UserServiceBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserFieldsBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int PAGE = 100;
+    private static final Set<String> ID_EMAIL = Set.of("id", "email");
+
+    private SingleConnectionDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private UserRepository userRepository;
+    private UserService userService;
+    private UserFields fields;
+    private ObjectMapper halMapper;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:fields-benchmark;DB_CLOSE_DELAY=-1", "sa", "", true);
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(User.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+        entityManager = entityManagerFactory.createEntityManager();
+
+        entityManager.getTransaction().begin();
+        for (long id = 1; id <= USERS; id++) {
+            User user = UserServiceBenchmark.user(id);
+            user.setId(null);
+            entityManager.persist(user);
+            if (id % 500 == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+
+        userRepository = new JpaRepositoryFactory(entityManager).getRepository(UserRepository.class,
+                RepositoryFragments.just(new UserProjectionRepositoryImpl(entityManager)));
+        userService = new UserService(userRepository, mock(UserEventOutbox.class),
+                mock(UserResponseCache.class), mock(EmailBloomFilter.class), new UserLinkFactory());
+        fields = UserFields.parse("id,email");
+        halMapper = UserServiceBenchmark.halObjectMapper();
+
+        System.out.printf("HAL page of %d users: full %d B, fields=id,email %d B%n",
+                PAGE, halPageFull().length, halPageSparse().length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        entityManagerFactory.close();
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<User> repositoryEntities() {
+        // Иначе контекст персистентности отдаст уже загруженные сущности без гидратации
+        entityManager.clear();
+        return userRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.ofSize(PAGE));
+    }
+
+    @Benchmark
+    public List<Tuple> repositoryTuples() {
+        return userRepository.findAttributesByIdGreaterThan(0L, ID_EMAIL, PAGE);
+    }
+
+    @Benchmark
+    public byte[] halPageFull() throws Exception {
+        entityManager.clear();
+        return halMapper.writeValueAsBytes(userService.getAllUsers(null, PAGE));
+    }
+
+    @Benchmark
+    public byte[] halPageSparse() throws Exception {
+        return halMapper.writeValueAsBytes(userService.getAllUsers(null, PAGE, fields));
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.user_service.benchmark;
+
+import com.example.events.UserEvent;
+import com.example.user_service.dto.UserRequest;
+import com.example.user_service.dto.UserResponse;
+import com.example.user_service.model.User;
+import com.example.user_service.repository.UserRepository;
+import com.example.user_service.service.EmailBloomFilter;
+import com.example.user_service.service.UserEventOutbox;
+import com.example.user_service.service.UserLinkFactory;
+import com.example.user_service.service.UserResponseCache;
+import com.example.user_service.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.AnnotationLinkRelationProvider;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.hateoas.server.core.DelegatingLinkRelationProvider;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * JMH: горячие пути одиночного пользователя - getUserById (сборка ответа с HATEOAS-ссылками),
+ * HAL-сериализация, JSON события для outbox и валидация запроса.
+ * Запускается из {@link UserServiceBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private UserService userService;
+    private User user;
+    private EntityModel<UserResponse> model;
+    private UserEvent event;
+    private ObjectMapper halMapper;
+    private ObjectMapper jsonMapper;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private UserRequest validRequest;
+    private UserRequest invalidRequest;
+
+    @Setup
+    public void setUp() {
+        user = user(1_048_576L);
+        userService = userService(id -> user);
+        model = userService.getUserById(user.getId());
+        event = new UserEvent(UserEvent.EventType.USER_CREATED, user.getId(), user.getEmail(), user.getName(),
+                LocalDateTime.of(2024, 3, 1, 12, 0));
+        halMapper = halObjectMapper();
+        jsonMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validRequest = new UserRequest("Иван Петров", "ivan.petrov@example.com", 30);
+        invalidRequest = new UserRequest(" ", "not-an-email", null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public EntityModel<UserResponse> getUserById() {
+        return userService.getUserById(user.getId());
+    }
+
+    @Benchmark
+    public byte[] halSingleUser() throws Exception {
+        return halMapper.writeValueAsBytes(model);
+    }
+
+    @Benchmark
+    public String userEventJson() throws Exception {
+        return jsonMapper.writeValueAsString(event);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequest>> validateValidRequest() {
+        return validator.validate(validRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequest>> validateInvalidRequest() {
+        return validator.validate(invalidRequest);
+    }
+
+    // Настройки как у HAL-конвертера Spring HATEOAS в приложении: HAL-модуль, даты строками
+    // и имена коллекций из @Relation
+    static ObjectMapper halObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .registerModule(new Jackson2HalModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DelegatingLinkRelationProvider(new AnnotationLinkRelationProvider(),
+                        new DefaultLinkRelationProvider()), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return mapper;
+    }
+
+    // Сервис на репозитории-заглушке без Mockito: findById отдаёт пользователя из users,
+    // поэтому в замер попадает только сборка ответа, а не перехват вызова моком
+    static UserService userService(LongFunction<User> users) {
+        UserRepository repository = (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findById")) {
+                        return Optional.of(users.apply((Long) args[0]));
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new UserService(repository, mock(UserEventOutbox.class), mock(UserResponseCache.class),
+                mock(EmailBloomFilter.class), new UserLinkFactory());
+    }
+
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("User " + id);
+        user.setEmail("user" + id + "@example.com");
+        user.setAge(30);
+        user.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 0));
+        return user;
+    }
+}
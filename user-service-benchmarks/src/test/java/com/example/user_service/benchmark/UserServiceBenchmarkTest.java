@@ -0,0 +1,31 @@
+package com.example.user_service.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH-бенчмарки горячих путей user-service с GC-профайлером (gc.alloc.rate.norm - байт на операцию).
+ * Запуск из user-service-benchmarks (user-service должен быть установлен: mvn install в корне):
+ * mvn test -Dsurefire.excludedGroups= -Dgroups=benchmark -Dtest=UserServiceBenchmarkTest
+ * Результат пишется в target/jmh-user-service.json; сравнивать с src/test/resources/jmh/baseline.txt
+ */
+@Tag("benchmark")
+class UserServiceBenchmarkTest {
+
+    @Test
+    void userServiceHotPaths() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(UserServiceBenchmark.class.getSimpleName())
+                .include(UserCollectionHalBenchmark.class.getSimpleName())
+                .include(UserFieldsBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-user-service.json")
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.user_service.config;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+
+import java.util.Locale;
+
+@Configuration
+public class MetricsConfig {
+
+    // spring.data.repository.invocations получает тот же тег outcome, что и http.server.requests
+    @Bean
+    public RepositoryTagsProvider repositoryTagsProvider() {
+        DefaultRepositoryTagsProvider defaults = new DefaultRepositoryTagsProvider();
+        return invocation -> Tags.of(defaults.repositoryTags(invocation))
+                .and(Tag.of("outcome", outcome(invocation)));
+    }
+
+    private static String outcome(RepositoryMethodInvocation invocation) {
+        return invocation.getResult() == null
+                ? "unknown"
+                : invocation.getResult().getState().name().toLowerCase(Locale.ROOT);
+    }
+}
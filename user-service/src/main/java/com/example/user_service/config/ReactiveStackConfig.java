@@ -0,0 +1,28 @@
+package com.example.user_service.config;
+
+import com.example.events.UserEvent;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import reactor.kafka.sender.SenderOptions;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveStackConfig {
+
+    // Tomcat тоже на classpath (servlet-стек), и без явной фабрики Boot запустил бы WebFlux на нём
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    // Те же настройки продюсера spring.kafka.producer.*, что и у KafkaTemplate servlet-стека
+    @Bean
+    public ReactiveKafkaProducerTemplate<String, UserEvent> reactiveKafkaProducerTemplate(KafkaProperties properties) {
+        SenderOptions<String, UserEvent> options = SenderOptions.create(properties.buildProducerProperties(null));
+        return new ReactiveKafkaProducerTemplate<>(options);
+    }
+}
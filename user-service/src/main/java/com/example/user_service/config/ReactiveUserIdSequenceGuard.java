@@ -0,0 +1,49 @@
+package com.example.user_service.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@link UserIdSequenceGuard} для профиля reactive: db/reactive-schema.sql создаёт users_seq
+ * с единицы и на БД, где пользователей уже создавал IDENTITY-столбец. Выполняется после
+ * этого скрипта, при старте контекста, поэтому блокирующее ожидание здесь допустимо.
+ */
+@Component
+@Profile("reactive")
+@DependsOn("r2dbcScriptDatabaseInitializer")
+public class ReactiveUserIdSequenceGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUserIdSequenceGuard.class);
+
+    private final ConnectionFactory connectionFactory;
+    private final DatabaseClient databaseClient;
+
+    public ReactiveUserIdSequenceGuard(ConnectionFactory connectionFactory, DatabaseClient databaseClient) {
+        this.connectionFactory = connectionFactory;
+        this.databaseClient = databaseClient;
+    }
+
+    @PostConstruct
+    public void alignUserIdSequence() {
+        if (!"PostgreSQL".equals(connectionFactory.getMetadata().getName())) {
+            return;
+        }
+        List<Long> aligned = databaseClient.sql(UserIdSequenceGuard.ALIGN_USERS_SEQ)
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .collectList()
+                .block(Duration.ofSeconds(30));
+        if (aligned != null && !aligned.isEmpty()) {
+            log.warn("users_seq was behind existing user ids, moved it to {}", aligned.get(0));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.user_service.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Чтение с реплик: primary настраивается обычными spring.datasource.*, реплики -
+ * user-service.datasource.replicas.*. Read-only транзакции уходят на реплики
+ * через {@link ReplicaRoutingDataSource}.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "user-service.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${user-service.datasource.replicas.urls:}") List<String> urls,
+            @Value("${user-service.datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${user-service.datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${user-service.datasource.replicas.max-pool-size:10}") int maxPoolSize,
+            @Value("${user-service.datasource.replicas.connection-timeout:1s}") Duration connectionTimeout,
+            @Value("${user-service.datasource.replicas.retry-after:30s}") Duration retryAfter) {
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("user-service.datasource.replicas.urls must not be empty");
+        }
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+        // Пулы не бины, поэтому hikaricp.* для них регистрируем сами
+        primary.setMetricsTrackerFactory(metrics);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + (i + 1));
+            config.setJdbcUrl(urls.get(i).trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(maxPoolSize);
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            config.setReadOnly(true);
+            // Недоступная при старте реплика не должна мешать запуску - её отсеет маршрутизация
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(metrics);
+            replicas.put(config.getPoolName(), new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, retryAfter, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    // По умолчанию Hibernate держит соединение до закрытия EntityManager (open-in-view -
+    // весь запрос), и следующая транзакция получила бы соединение, выбранное для предыдущей
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
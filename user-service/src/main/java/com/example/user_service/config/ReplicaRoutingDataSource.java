@@ -0,0 +1,153 @@
+package com.example.user_service.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Направляет read-only транзакции на реплики, остальные соединения - на primary.
+ * Реплики выбираются по кругу; реплика, не выдавшая соединение, пропускается в течение
+ * retryAfter, а если доступных реплик нет, чтение идёт на primary.
+ * Работает только за {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * признак read-only выставляется уже после того, как менеджер транзакций запросил соединение.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long retryAfterNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+    private final Counter fallbackReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    Duration retryAfter, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.retryAfterNanos = retryAfter.toNanos();
+
+        this.replicaReads = Counter.builder("user.datasource.reads")
+                .tag("target", "replica")
+                .register(meterRegistry);
+        this.primaryReads = Counter.builder("user.datasource.reads")
+                .tag("target", "primary")
+                .register(meterRegistry);
+        this.fallbackReads = Counter.builder("user.datasource.reads")
+                .tag("target", "fallback")
+                .register(meterRegistry);
+    }
+
+    // Чтения текущего потока идут на primary до unpin() - окно read-your-writes
+    public static void pinToPrimary() {
+        PRIMARY_PINNED.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PRIMARY_PINNED.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PRIMARY_PINNED.get() != null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return connect(primary, username, password);
+        }
+        if (isPinnedToPrimary()) {
+            primaryReads.increment();
+            return connect(primary, username, password);
+        }
+
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            long now = System.nanoTime();
+            if (!replica.available(now, retryAfterNanos)) {
+                continue;
+            }
+            try {
+                Connection connection = connect(replica.dataSource, username, password);
+                replica.markUp();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.markDown(now);
+                log.warn("Replica {} is unavailable, skipping it for {} s: {}",
+                        replica.name, Duration.ofNanos(retryAfterNanos).toSeconds(), e.toString());
+            }
+        }
+
+        fallbackReads.increment();
+        return connect(primary, username, password);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> closeQuietly(replica.dataSource));
+        closeQuietly(primary);
+    }
+
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username != null ? dataSource.getConnection(username, password) : dataSource.getConnection();
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close data source", e);
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean down;
+        private volatile long downSince;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private boolean available(long now, long retryAfterNanos) {
+            return !down || now - downSince >= retryAfterNanos;
+        }
+
+        private void markDown(long now) {
+            downSince = now;
+            down = true;
+        }
+
+        private void markUp() {
+            down = false;
+        }
+    }
+}
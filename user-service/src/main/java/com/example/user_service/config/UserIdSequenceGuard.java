@@ -0,0 +1,52 @@
+package com.example.user_service.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Выравнивает последовательность users_seq по уже выданным id. Раньше id пользователей
+ * выдавал IDENTITY-столбец, и на существующей БД ddl-auto=update создаёт users_seq
+ * с единицы - первые же вставки столкнулись бы с существующими строками. Проверка идёт
+ * после обновления схемы Hibernate и до приёма запросов. Последовательность только
+ * сдвигается вперёд: блоки id, уже выделенные работающим экземплярам, повторно не выдаются.
+ * Только PostgreSQL; в H2 тестов схема создаётся заново, и setval там нет.
+ */
+@Component
+@Profile("!reactive")
+@DependsOn("entityManagerFactory")
+public class UserIdSequenceGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(UserIdSequenceGuard.class);
+
+    // Ни одной строки, если последовательность уже впереди максимального id
+    static final String ALIGN_USERS_SEQ = "SELECT setval('users_seq', ids.max_id) "
+            + "FROM (SELECT MAX(id) AS max_id FROM users) ids "
+            + "WHERE ids.max_id > (SELECT last_value FROM users_seq)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserIdSequenceGuard(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignUserIdSequence() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        List<Long> aligned = jdbcTemplate.queryForList(ALIGN_USERS_SEQ, Long.class);
+        if (!aligned.isEmpty()) {
+            log.warn("users_seq was behind existing user ids, moved it to {}", aligned.get(0));
+        }
+    }
+}
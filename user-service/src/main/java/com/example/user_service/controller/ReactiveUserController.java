@@ -0,0 +1,116 @@
+package com.example.user_service.controller;
+
+import com.example.user_service.dto.BulkUserImportResponse;
+import com.example.user_service.dto.UserRequest;
+import com.example.user_service.dto.UserResponse;
+import com.example.user_service.service.ReactiveUserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.channel.AbortedException;
+
+import java.util.List;
+
+/**
+ * Тот же контракт /api/users, что у {@link UserController}, на WebFlux (профиль reactive).
+ * Описание операций и кодов ответа - в {@link UserController}.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/users")
+@Tag(name = "User Controller", description = "API для управления пользователями")
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    public ReactiveUserController(ReactiveUserService userService) {
+        this.userService = userService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Создать нового пользователя")
+    public Mono<ResponseEntity<EntityModel<UserResponse>>> createUser(@Valid @RequestBody UserRequest userRequest,
+                                                                      ServerHttpRequest request) {
+        return userService.createUser(userRequest, baseUri(request))
+                .map(user -> new ResponseEntity<>(user, HttpStatus.CREATED));
+    }
+
+    @PostMapping("/bulk")
+    @Operation(summary = "Массово создать пользователей")
+    public Mono<ResponseEntity<BulkUserImportResponse>> createUsers(@RequestBody List<UserRequest> userRequests) {
+        return userService.importUsers(userRequests).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Получить пользователя по ID")
+    public Mono<ResponseEntity<EntityModel<UserResponse>>> getUserById(@PathVariable Long id,
+                                                                       ServerHttpRequest request) {
+        return userService.getUserById(id, baseUri(request)).map(ResponseEntity::ok);
+    }
+
+    @GetMapping
+    @Operation(summary = "Получить всех пользователей")
+    public Mono<ResponseEntity<CollectionModel<EntityModel<UserResponse>>>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            ServerHttpRequest request) {
+        return userService.getAllUsers(cursor, size, baseUri(request)).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/export", produces = UserController.NDJSON_VALUE)
+    @Operation(summary = "Выгрузить всех пользователей")
+    public Flux<UserResponse> exportUsers() {
+        return userService.exportUsers();
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Обновить пользователя")
+    public Mono<ResponseEntity<EntityModel<UserResponse>>> updateUser(@PathVariable Long id,
+                                                                      @Valid @RequestBody UserRequest userRequest,
+                                                                      ServerHttpRequest request) {
+        return userService.updateUser(id, userRequest, baseUri(request)).map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Удалить пользователя")
+    public Mono<ResponseEntity<Void>> deleteUser(@PathVariable Long id) {
+        return userService.deleteUser(id).then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return new ResponseEntity<>("User was modified concurrently, retry the request", HttpStatus.CONFLICT);
+    }
+
+    // Клиент уже закрыл соединение: 400 отправить некуда, ошибку возвращаем фреймворку
+    @ExceptionHandler(AbortedException.class)
+    public Mono<Void> handleAbortedException(AbortedException ex) {
+        return Mono.error(ex);
+    }
+
+    // Аналог fromCurrentServletMapping: схема, хост и порт запроса плюс context path, без слэша в конце
+    private static String baseUri(ServerHttpRequest request) {
+        return UriComponentsBuilder.fromUri(request.getURI())
+                .replacePath(request.getPath().contextPath().value())
+                .replaceQuery(null)
+                .fragment(null)
+                .build()
+                .toUriString();
+    }
+}
@@ -1,31 +1,62 @@
 package com.example.user_service.controller;
 
+import com.example.user_service.dto.BulkUserImportResponse;
+import com.example.user_service.dto.SparseUserResponse;
 import com.example.user_service.dto.UserRequest;
 import com.example.user_service.dto.UserResponse;
+import com.example.user_service.dto.UserSearchCriteria;
+import com.example.user_service.service.UserBulkImportService;
+import com.example.user_service.service.UserExportService;
+import com.example.user_service.service.UserFields;
 import com.example.user_service.service.UserService;
+import com.example.user_service.service.UserVersionMismatchException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/users")
 @Tag(name = "User Controller", description = "API для управления пользователями")
 public class UserController {
 
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String SEARCH_PATH = "/search";
+
+    private static final String FIELDS_DESCRIPTION = "Поля пользователя через запятую: id, name, email, age, "
+            + "createdAt и links (ссылки пользователя). Без параметра - все поля и ссылки";
+
     private final UserService userService;
+    private final UserExportService userExportService;
+    private final UserBulkImportService userBulkImportService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService,
+                          UserExportService userExportService,
+                          UserBulkImportService userBulkImportService) {
         this.userService = userService;
+        this.userExportService = userExportService;
+        this.userBulkImportService = userBulkImportService;
     }
 
     @PostMapping
@@ -41,29 +72,119 @@ public class UserController {
         return new ResponseEntity<>(userResponse, HttpStatus.CREATED);
     }
 
+    @PostMapping("/bulk")
+    @Operation(summary = "Массово создать пользователей",
+            description = "Создает пользователей пачкой. Некорректные строки и занятые email "
+                    + "попадают в список ошибок и не прерывают импорт остальных")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Импорт выполнен, см. отчет по строкам"),
+            @ApiResponse(responseCode = "400", description = "Превышен допустимый размер пачки")
+    })
+    public ResponseEntity<BulkUserImportResponse> createUsers(@RequestBody List<UserRequest> userRequests) {
+        BulkUserImportResponse result = userBulkImportService.importUsers(userRequests);
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Получить пользователя по ID",
             description = "Возвращает информацию о пользователе по его идентификатору")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Пользователь найден"),
+            @ApiResponse(responseCode = "304", description = "Пользователь не изменился с версии из If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Пользователь не найден")
     })
-    public ResponseEntity<EntityModel<UserResponse>> getUserById(
+    public ResponseEntity<? extends EntityModel<?>> getUserById(
             @Parameter(description = "ID пользователя", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = FIELDS_DESCRIPTION, example = "id,email")
+            @RequestParam(required = false) String fields,
+            @Parameter(hidden = true) WebRequest request) {
+        UserFields selection = UserFields.parse(fields);
+        // На If-None-Match отвечаем по одной версии: без загрузки пользователя, ссылок и сериализации
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Optional<Long> version = userService.findUserVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (request.checkNotModified(etag(version.get()))) {
+                return null;
+            }
+        }
+        if (selection != null) {
+            EntityModel<SparseUserResponse> sparse = userService.getUserById(id, selection);
+            return ResponseEntity.ok()
+                    .eTag(etag(sparse.getContent().getVersion()))
+                    .body(sparse);
+        }
         EntityModel<UserResponse> userResponse = userService.getUserById(id);
-        return ResponseEntity.ok(userResponse);
+        return ResponseEntity.ok()
+                .eTag(etag(userResponse.getContent().getVersion()))
+                .body(userResponse);
     }
 
     @GetMapping
     @Operation(summary = "Получить всех пользователей",
-            description = "Возвращает список всех пользователей")
-    @ApiResponse(responseCode = "200", description = "Список пользователей получен")
-    public ResponseEntity<CollectionModel<EntityModel<UserResponse>>> getAllUsers() {
-        CollectionModel<EntityModel<UserResponse>> users = userService.getAllUsers();
+            description = "Возвращает страницу пользователей, упорядоченных по id. "
+                    + "Следующая и предыдущая страницы доступны по ссылкам next/prev")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Страница пользователей получена"),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор или размер страницы")
+    })
+    public ResponseEntity<? extends CollectionModel<?>> getAllUsers(
+            @Parameter(description = "Курсор страницы из ссылки next/prev")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы (ограничен сверху настройкой сервиса)", example = "20")
+            @RequestParam(required = false) Integer size,
+            @Parameter(description = FIELDS_DESCRIPTION, example = "id,email")
+            @RequestParam(required = false) String fields) {
+        UserFields selection = UserFields.parse(fields);
+        if (selection != null) {
+            return ResponseEntity.ok(userService.getAllUsers(cursor, size, selection));
+        }
+        CollectionModel<EntityModel<UserResponse>> users = userService.getAllUsers(cursor, size);
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping(SEARCH_PATH)
+    @Operation(summary = "Найти пользователей",
+            description = "Возвращает страницу пользователей, подходящих под все заданные фильтры, "
+                    + "упорядоченных по дате создания и id. Следующая страница доступна по ссылке next")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Страница найденных пользователей получена"),
+            @ApiResponse(responseCode = "400", description = "Некорректные фильтры, курсор или размер страницы")
+    })
+    public ResponseEntity<CollectionModel<EntityModel<UserResponse>>> searchUsers(
+            @Parameter(description = "Начало имени, с учётом регистра", example = "Ив")
+            @RequestParam(required = false) String namePrefix,
+            @Parameter(description = "Минимальный возраст, включительно", example = "18")
+            @RequestParam(required = false) Integer minAge,
+            @Parameter(description = "Максимальный возраст, включительно", example = "65")
+            @RequestParam(required = false) Integer maxAge,
+            @Parameter(description = "Создан не раньше, ISO-8601", example = "2024-01-01T00:00:00")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @Parameter(description = "Создан раньше, ISO-8601", example = "2025-01-01T00:00:00")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @Parameter(description = "Курсор страницы из ссылки next")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы (ограничен сверху настройкой сервиса)", example = "20")
+            @RequestParam(required = false) Integer size) {
+        UserSearchCriteria criteria = new UserSearchCriteria(namePrefix, minAge, maxAge, createdFrom, createdTo);
+        return ResponseEntity.ok(userService.searchUsers(criteria, cursor, size));
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    @Operation(summary = "Выгрузить всех пользователей",
+            description = "Потоково выгружает всех пользователей в формате NDJSON, по одной записи на строку")
+    @ApiResponse(responseCode = "200", description = "Выгрузка начата")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = userExportService::exportUsers;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(body);
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Обновить пользователя",
             description = "Обновляет информацию о пользователе")
@@ -71,14 +192,20 @@ public class UserController {
             @ApiResponse(responseCode = "200", description = "Пользователь успешно обновлен"),
             @ApiResponse(responseCode = "400", description = "Некорректные данные"),
             @ApiResponse(responseCode = "404", description = "Пользователь не найден"),
-            @ApiResponse(responseCode = "409", description = "Пользователь с таким email уже существует")
+            @ApiResponse(responseCode = "409", description = "Пользователь с таким email уже существует "
+                    + "или был одновременно изменён другим запросом"),
+            @ApiResponse(responseCode = "412", description = "Версия пользователя не совпадает с If-Match")
     })
     public ResponseEntity<EntityModel<UserResponse>> updateUser(
             @Parameter(description = "ID пользователя", required = true, example = "1")
             @PathVariable Long id,
+            @Parameter(description = "ETag изменяемой версии; без него изменение выполняется безусловно")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UserRequest userRequest) {
-        EntityModel<UserResponse> userResponse = userService.updateUser(id, userRequest);
-        return ResponseEntity.ok(userResponse);
+        EntityModel<UserResponse> userResponse = userService.updateUser(id, userRequest, ifMatchVersions(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(etag(userResponse.getContent().getVersion()))
+                .body(userResponse);
     }
 
     @DeleteMapping("/{id}")
@@ -86,12 +213,15 @@ public class UserController {
             description = "Удаляет пользователя по его идентификатору")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Пользователь успешно удален"),
-            @ApiResponse(responseCode = "404", description = "Пользователь не найден")
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден"),
+            @ApiResponse(responseCode = "412", description = "Версия пользователя не совпадает с If-Match")
     })
     public ResponseEntity<Void> deleteUser(
             @Parameter(description = "ID пользователя", required = true, example = "1")
-            @PathVariable Long id) {
-        userService.deleteUser(id);
+            @PathVariable Long id,
+            @Parameter(description = "ETag удаляемой версии; без него удаление выполняется безусловно")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.deleteUser(id, ifMatchVersions(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
@@ -99,4 +229,39 @@ public class UserController {
     public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler(UserVersionMismatchException.class)
+    public ResponseEntity<String> handleVersionMismatch(UserVersionMismatchException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // Параллельный запрос успел изменить строку между чтением и записью
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return new ResponseEntity<>("User was modified concurrently, retry the request", HttpStatus.CONFLICT);
+    }
+
+    // Сильный ETag из @Version: меняется при каждом изменении пользователя
+    static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // null или "*" - без условия; слабые (W/) и чужие теги при строгом сравнении не совпадают ни с чем
+    static Set<Long> ifMatchVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            String value = tag.trim();
+            if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                try {
+                    versions.add(Long.valueOf(value.substring(1, value.length() - 1)));
+                } catch (NumberFormatException ignored) {
+                    // не наш тег
+                }
+            }
+        }
+        return versions;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.example.user_service.controller;
+
+import com.example.user_service.config.ReplicaRoutingDataSource;
+import com.example.user_service.service.UserResponseCache;
+import com.example.user_service.service.UserResponseCache.CachedResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Отдаёт GET /api/users/{id} из {@link UserResponseCache}, минуя контроллер:
+ * при попадании не выполняются ни запрос к БД, ни построение ссылок, ни Jackson.
+ * При промахе ответ контроллера перехватывается и сохраняется в кэш, если пользователя
+ * не изменили, пока шло чтение.
+ * Вместе с телом хранится ETag: на совпавший If-None-Match сразу отвечаем 304.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "user-service.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class UserResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final Pattern USER_PATH = Pattern.compile("^/api/users/(\\d+)$");
+
+    private final UserResponseCache userResponseCache;
+
+    public UserResponseCacheFilter(UserResponseCache userResponseCache) {
+        this.userResponseCache = userResponseCache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Ответы с параметрами (?fields=) - другие представления, в кэше только полный ответ
+        return !HttpMethod.GET.matches(request.getMethod()) || !request.getParameterMap().isEmpty()
+                || userId(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Long id = userId(request);
+        String variant = variant(request);
+
+        CachedResponse cached = userResponseCache.get(id, variant);
+        if (cached != null) {
+            if (cached.etag() != null && new ServletWebRequest(request, response).checkNotModified(cached.etag())) {
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_OK);
+            if (cached.etag() != null) {
+                response.setHeader(HttpHeaders.ETAG, cached.etag());
+            }
+            response.setContentType(cached.contentType());
+            response.setContentLength(cached.body().length);
+            response.getOutputStream().write(cached.body());
+            return;
+        }
+
+        // Снимок до чтения: если пользователя изменят, пока мы читаем, ответ в кэш не попадёт
+        long generation = userResponseCache.generation(id);
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        // Кэш наполняется только с primary: ответ отставшей реплики сразу после
+        // invalidate() пролежал бы в кэше до конца TTL
+        boolean pinned = ReplicaRoutingDataSource.isPinnedToPrimary();
+        ReplicaRoutingDataSource.pinToPrimary();
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            if (!pinned) {
+                ReplicaRoutingDataSource.unpin();
+            }
+        }
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && wrapper.getContentType() != null) {
+            userResponseCache.put(id, generation, new CachedResponse(variant, wrapper.getContentType(),
+                    wrapper.getHeader(HttpHeaders.ETAG), wrapper.getContentAsByteArray()));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private Long userId(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Matcher matcher = USER_PATH.matcher(path);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Всё, от чего зависят абсолютные ссылки и формат тела ответа
+    private String variant(HttpServletRequest request) {
+        return request.getScheme() + "://" + request.getServerName() + ":" + request.getServerPort()
+                + request.getContextPath()
+                + '|' + request.getHeader(HttpHeaders.ACCEPT)
+                + '|' + request.getHeader(HttpHeaders.HOST)
+                + '|' + request.getHeader("Forwarded")
+                + '|' + request.getHeader("X-Forwarded-Host")
+                + '|' + request.getHeader("X-Forwarded-Proto")
+                + '|' + request.getHeader("X-Forwarded-Port")
+                + '|' + request.getHeader("X-Forwarded-Prefix");
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.user_service.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkUserImportResponse {
+    private int received;
+    private int created;
+    private int failed;
+    private List<RowError> errors = new ArrayList<>();
+
+    public BulkUserImportResponse() {
+    }
+
+    public BulkUserImportResponse(int received) {
+        this.received = received;
+    }
+
+    public void addCreated(int count) {
+        created += count;
+    }
+
+    public void addError(int index, String email, String message) {
+        errors.add(new RowError(index, email, message));
+        failed++;
+    }
+
+    // Getters and Setters
+    public int getReceived() {
+        return received;
+    }
+
+    public void setReceived(int received) {
+        this.received = received;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkUserImportResponse{" +
+                "received=" + received +
+                ", created=" + created +
+                ", failed=" + failed +
+                ", errors=" + errors +
+                '}';
+    }
+
+    public static class RowError {
+        private int index;
+        private String email;
+        private String message;
+
+        public RowError() {
+        }
+
+        public RowError(int index, String email, String message) {
+            this.index = index;
+            this.email = email;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "RowError{" +
+                    "index=" + index +
+                    ", email='" + email + '\'' +
+                    ", message='" + message + '\'' +
+                    '}';
+        }
+    }
+}
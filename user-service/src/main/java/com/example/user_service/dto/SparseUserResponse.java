@@ -0,0 +1,51 @@
+package com.example.user_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.hateoas.server.core.Relation;
+
+import java.util.Map;
+
+/**
+ * Пользователь с подмножеством полей (?fields=): в JSON попадают только запрошенные свойства,
+ * под теми же именами, что в {@link UserResponse}. Связи HAL тоже те же, поэтому
+ * коллекция по-прежнему лежит в _embedded.userResponseList.
+ */
+@Relation(itemRelation = "userResponse", collectionRelation = "userResponseList")
+public class SparseUserResponse {
+
+    private final Long id;
+    private final Map<String, Object> fields;
+    private final Long version;
+
+    public SparseUserResponse(Long id, Map<String, Object> fields, Long version) {
+        this.id = id;
+        this.fields = fields;
+        this.version = version;
+    }
+
+    // id читается всегда (ссылки, курсор), а в теле есть, только если запрошен
+    @JsonIgnore
+    public Long getId() {
+        return id;
+    }
+
+    @JsonAnyGetter
+    public Map<String, Object> getFields() {
+        return fields;
+    }
+
+    @JsonIgnore
+    public Long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "SparseUserResponse{" +
+                "id=" + id +
+                ", fields=" + fields +
+                ", version=" + version +
+                '}';
+    }
+}
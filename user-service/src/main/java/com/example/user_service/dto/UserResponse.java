@@ -1,5 +1,7 @@
 package com.example.user_service.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.time.LocalDateTime;
 
 public class UserResponse {
@@ -9,6 +11,10 @@ public class UserResponse {
     private Integer age;
     private LocalDateTime createdAt;
 
+    // Передаётся клиенту в заголовке ETag, а не в теле
+    @JsonIgnore
+    private Long version;
+
     public UserResponse() {
     }
 
@@ -61,6 +67,14 @@ public class UserResponse {
         this.createdAt = createdAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "UserResponse{" +
@@ -0,0 +1,78 @@
+package com.example.user_service.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Фильтры поиска пользователей; null - фильтр не задан.
+ * Границы возраста включительные, createdFrom включительно, createdTo - нет.
+ */
+public class UserSearchCriteria {
+    private String namePrefix;
+    private Integer minAge;
+    private Integer maxAge;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+
+    public UserSearchCriteria() {
+    }
+
+    public UserSearchCriteria(String namePrefix, Integer minAge, Integer maxAge,
+                              LocalDateTime createdFrom, LocalDateTime createdTo) {
+        this.namePrefix = namePrefix;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.createdFrom = createdFrom;
+        this.createdTo = createdTo;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public void setMinAge(Integer minAge) {
+        this.minAge = minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Integer maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public void setCreatedFrom(LocalDateTime createdFrom) {
+        this.createdFrom = createdFrom;
+    }
+
+    public LocalDateTime getCreatedTo() {
+        return createdTo;
+    }
+
+    public void setCreatedTo(LocalDateTime createdTo) {
+        this.createdTo = createdTo;
+    }
+
+    @Override
+    public String toString() {
+        return "UserSearchCriteria{" +
+                "namePrefix='" + namePrefix + '\'' +
+                ", minAge=" + minAge +
+                ", maxAge=" + maxAge +
+                ", createdFrom=" + createdFrom +
+                ", createdTo=" + createdTo +
+                '}';
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.user_service.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+/**
+ * Строка outbox-таблицы для R2DBC (профиль reactive). Та же схема, что у JPA-сущности
+ * {@link OutboxEvent}: id из последовательности user_outbox_seq, отложенные строки - с failedAt.
+ */
+@Table("user_outbox")
+public record OutboxRow(
+        @Id Long id,
+        @Column("user_id") Long userId,
+        @Column("event_type") String eventType,
+        String payload,
+        @Column("created_at") Instant createdAt,
+        @Column("failed_at") Instant failedAt,
+        String failure) {
+
+    public OutboxRow withId(Long id) {
+        return new OutboxRow(id, userId, eventType, payload, createdAt, failedAt, failure);
+    }
+
+    public OutboxRow parked(Instant failedAt, String failure) {
+        return new OutboxRow(id, userId, eventType, payload, createdAt, failedAt, failure);
+    }
+}
@@ -1,13 +1,22 @@
 package com.example.user_service.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 
+// Индексы под фильтры поиска; (created_at, id) - ещё и порядок keyset-страниц поиска
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_name", columnList = "name"),
+        @Index(name = "idx_users_age", columnList = "age"),
+        @Index(name = "idx_users_created_at_id", columnList = "created_at, id")
+})
 public class User {
+    // Последовательность с pooled-оптимизатором: id выделяются блоками по allocationSize,
+    // что позволяет Hibernate группировать INSERT в JDBC-батчи (IDENTITY это запрещает)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -21,6 +30,12 @@ public class User {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Оптимистическая блокировка и источник ETag; DEFAULT 0 заполняет уже существующие строки
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public User() {
     }
 
@@ -80,6 +95,14 @@ public class User {
         this.createdAt = createdAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "User{" +
@@ -88,6 +111,7 @@ public class User {
                 ", email='" + email + '\'' +
                 ", age=" + age +
                 ", createdAt=" + createdAt +
+                ", version=" + version +
                 '}';
     }
 
@@ -0,0 +1,27 @@
+package com.example.user_service.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка таблицы users для R2DBC (профиль reactive). Та же схема, что у JPA-сущности {@link User}:
+ * id берётся из последовательности users_seq, поэтому оба стека могут работать с одной БД.
+ */
+@Table("users")
+public record UserRow(
+        @Id Long id,
+        String name,
+        String email,
+        Integer age,
+        @Column("created_at") LocalDateTime createdAt,
+        // Тот же счётчик, что у User: ETag servlet-стека меняется и после изменений через этот стек
+        @Version Long version) {
+
+    public UserRow withId(Long id) {
+        return new UserRow(id, name, email, age, createdAt, version);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.user_service.repository;
+
+import com.example.user_service.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Блокировка строк не даёт двум экземплярам релея отправить одну и ту же пачку.
+    // Строки, занятые другим экземпляром, пропускаются (SKIP LOCKED), а не ждут, пока он
+    // отправит свою пачку в Kafka. Запрос нативный: подсказку lock.timeout = -2 H2Dialect
+    // молча отбрасывает. Отложенные (failed_at) не выбираются
+    @Query(value = "SELECT * FROM user_outbox WHERE failed_at IS NULL ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> findBatchForRelay(@Param("limit") int limit);
+
+    // Пользователи пачки, у которых есть более ранние неотправленные строки вне её: все
+    // свободные строки до последней в пачке уже в ней, значит, эти держит другой экземпляр
+    // релея, и события таких пользователей сейчас отправлять нельзя
+    @Query("select distinct e.userId from OutboxEvent e where e.failedAt is null and e.userId in :userIds "
+            + "and e.id < :lastId and e.id not in :batchIds")
+    List<Long> findUsersHeldElsewhere(@Param("userIds") Collection<Long> userIds, @Param("lastId") Long lastId,
+                                      @Param("batchIds") Collection<Long> batchIds);
+}
@@ -0,0 +1,27 @@
+package com.example.user_service.repository;
+
+import com.example.user_service.model.OutboxRow;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@Repository
+public interface ReactiveOutboxRepository extends R2dbcRepository<OutboxRow, Long> {
+
+    // Как OutboxEventRepository.findBatchForRelay: блокировка строк не даёт двум экземплярам
+    // релея отправить одну пачку, занятые строки пропускаются, отложенные (failed_at) не выбираются
+    @Query("SELECT * FROM user_outbox WHERE failed_at IS NULL ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED")
+    Flux<OutboxRow> findBatchForRelay(int limit);
+
+    // Как OutboxEventRepository.findUsersHeldElsewhere: чьи более ранние строки держит другой экземпляр
+    @Query("SELECT DISTINCT user_id FROM user_outbox WHERE failed_at IS NULL AND user_id IN (:userIds) "
+            + "AND id < :lastId AND id NOT IN (:batchIds)")
+    Flux<Long> findUsersHeldElsewhere(Collection<Long> userIds, Long lastId, Collection<Long> batchIds);
+
+    @Query("SELECT nextval('user_outbox_seq')")
+    Mono<Long> nextId();
+}
@@ -0,0 +1,31 @@
+package com.example.user_service.repository;
+
+import com.example.user_service.model.UserRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@Repository
+public interface ReactiveUserRepository extends R2dbcRepository<UserRow, Long> {
+
+    Mono<Boolean> existsByEmail(String email);
+
+    Flux<UserRow> findByEmailIn(Collection<String> emails);
+
+    // Keyset-пагинация, как в UserRepository
+    Flux<UserRow> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    Flux<UserRow> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+
+    // Строки приходят по мере чтения с учётом backpressure подписчика
+    Flux<UserRow> findAllByOrderByIdAsc();
+
+    // Та же последовательность, что у JPA-сущности User. Pooled-оптимизатор Hibernate отдаёт
+    // id из блока (value - allocationSize, value], так что одно значение не пересекается с чужими блоками
+    @Query("SELECT nextval('users_seq')")
+    Mono<Long> nextId();
+}
@@ -0,0 +1,22 @@
+package com.example.user_service.repository;
+
+import jakarta.persistence.Tuple;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tuple-проекции для ?fields=: в SELECT попадают только переданные атрибуты User,
+ * сущности не создаются и в контекст персистентности не попадают.
+ * Элементы кортежа доступны по имени атрибута.
+ */
+public interface UserProjectionRepository {
+
+    Optional<Tuple> findAttributesById(Long id, Collection<String> attributes);
+
+    // Keyset-пагинация, как findByIdGreaterThanOrderByIdAsc / findByIdLessThanOrderByIdDesc
+    List<Tuple> findAttributesByIdGreaterThan(Long id, Collection<String> attributes, int limit);
+
+    List<Tuple> findAttributesByIdLessThan(Long id, Collection<String> attributes, int limit);
+}
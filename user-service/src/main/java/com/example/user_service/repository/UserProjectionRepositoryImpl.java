@@ -0,0 +1,61 @@
+package com.example.user_service.repository;
+
+import com.example.user_service.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public class UserProjectionRepositoryImpl implements UserProjectionRepository {
+
+    private final EntityManager entityManager;
+
+    public UserProjectionRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<Tuple> findAttributesById(Long id, Collection<String> attributes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        query.multiselect(selections(user, attributes))
+                .where(cb.equal(user.get("id"), id));
+        return entityManager.createQuery(query).getResultStream().findFirst();
+    }
+
+    @Override
+    public List<Tuple> findAttributesByIdGreaterThan(Long id, Collection<String> attributes, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        query.multiselect(selections(user, attributes))
+                .where(cb.greaterThan(user.get("id"), id))
+                .orderBy(cb.asc(user.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<Tuple> findAttributesByIdLessThan(Long id, Collection<String> attributes, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        query.multiselect(selections(user, attributes))
+                .where(cb.lessThan(user.get("id"), id))
+                .orderBy(cb.desc(user.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    // Неизвестный атрибут - IllegalArgumentException от Criteria API, до обращения к БД
+    private static List<Selection<?>> selections(Root<User> user, Collection<String> attributes) {
+        return attributes.stream()
+                .<Selection<?>>map(attribute -> user.get(attribute).alias(attribute))
+                .toList();
+    }
+}
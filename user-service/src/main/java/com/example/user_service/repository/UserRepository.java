@@ -1,12 +1,56 @@
 package com.example.user_service.repository;
 
 import com.example.user_service.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+// JpaSpecificationExecutor - динамические условия поиска, см. UserSpecifications
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>,
+        UserProjectionRepository {
+    int EXPORT_FETCH_SIZE = 500;
+
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Только версия - для условных запросов без загрузки всей строки
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Keyset-пагинация: поиск по первичному ключу вместо OFFSET
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    List<User> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+
+    // Курсорное чтение всей таблицы для выгрузки; требует открытой транзакции
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAllOrderById();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
+}
@@ -0,0 +1,84 @@
+package com.example.user_service.repository;
+
+import com.example.user_service.dto.UserSearchCriteria;
+import com.example.user_service.model.User;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Условия поиска пользователей для {@link UserRepository#findBy}. Каждое условие
+ * - диапазон по индексируемой колонке (см. индексы {@link User}), без функций
+ * над колонкой, иначе индекс не используется.
+ */
+public final class UserSpecifications {
+
+    // Порядок страниц поиска совпадает с индексом idx_users_created_at_id
+    public static final Sort SEARCH_ORDER = Sort.by("createdAt", "id");
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private UserSpecifications() {
+    }
+
+    public static Specification<User> matching(UserSearchCriteria criteria) {
+        return Specification.allOf(
+                nameStartsWith(criteria.getNamePrefix()),
+                ageBetween(criteria.getMinAge(), criteria.getMaxAge()),
+                createdBetween(criteria.getCreatedFrom(), criteria.getCreatedTo()));
+    }
+
+    // LIKE 'abc%' без ведущего шаблона - диапазонный поиск по индексу name;
+    // регистр учитывается: lower(name) индекс бы не использовал
+    public static Specification<User> nameStartsWith(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return null;
+        }
+        String pattern = prefix
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(root.get("name"), pattern, LIKE_ESCAPE);
+    }
+
+    public static Specification<User> ageBetween(Integer min, Integer max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (min == null) {
+                return cb.lessThanOrEqualTo(root.get("age"), max);
+            }
+            if (max == null) {
+                return cb.greaterThanOrEqualTo(root.get("age"), min);
+            }
+            return cb.between(root.get("age"), min, max);
+        };
+    }
+
+    public static Specification<User> createdBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (from == null) {
+                return cb.lessThan(root.get("createdAt"), to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.get("createdAt"), from);
+            }
+            return cb.and(cb.greaterThanOrEqualTo(root.get("createdAt"), from),
+                    cb.lessThan(root.get("createdAt"), to));
+        };
+    }
+
+    // Keyset: строки после (createdAt, id) в порядке SEARCH_ORDER. Первое условие даёт
+    // границу диапазона по индексу, OR уточняет её для строк с тем же createdAt
+    public static Specification<User> after(LocalDateTime createdAt, Long id) {
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.get("createdAt"), createdAt),
+                cb.or(cb.greaterThan(root.get("createdAt"), createdAt),
+                        cb.greaterThan(root.get("id"), id)));
+    }
+}
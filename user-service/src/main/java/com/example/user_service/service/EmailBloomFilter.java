@@ -0,0 +1,227 @@
+package com.example.user_service.service;
+
+import com.example.user_service.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Фильтр Блума по email всех пользователей. Ответ "точно нет" позволяет не ходить
+ * в БД перед вставкой: окончательную проверку всё равно выполняет unique-индекс.
+ * Удалять элементы из фильтра нельзя, поэтому удалённые и сменённые email остаются
+ * в нём до ближайшей плановой перестройки и дают лишь лишние ложные срабатывания.
+ */
+@Component
+@Profile("!reactive")
+public class EmailBloomFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailBloomFilter.class);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double targetFpp;
+
+    private volatile Bits current;
+    private volatile Bits building;
+
+    private final Counter absent;
+    private final Counter mightBePresent;
+    private final Counter falsePositives;
+    private final MeterRegistry meterRegistry;
+
+    public EmailBloomFilter(UserRepository userRepository,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${user-service.email-bloom.enabled:true}") boolean enabled,
+                            @Value("${user-service.email-bloom.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${user-service.email-bloom.fpp:0.01}") double targetFpp) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        // С репликами перестройка читает с реплики: пропущенный из-за отставания email
+        // даст лишь ложный "нет", который всё равно отсекает unique-индекс
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.targetFpp = targetFpp;
+
+        this.absent = Counter.builder("user.email.bloom.checks")
+                .tag("result", "absent")
+                .register(meterRegistry);
+        this.mightBePresent = Counter.builder("user.email.bloom.checks")
+                .tag("result", "maybe_present")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("user.email.bloom.false.positives")
+                .register(meterRegistry);
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Датчики ссылаются на сам фильтр, поэтому регистрируются после конструктора:
+    // реестр не должен видеть не до конца созданный объект
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("user.email.bloom.expected.fpp", this, EmailBloomFilter::expectedFpp)
+                .description("Оценка доли ложных срабатываний при текущем заполнении")
+                .register(meterRegistry);
+        Gauge.builder("user.email.bloom.memory", this, EmailBloomFilter::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@code false} означает, что такого email точно нет в таблице users.
+     * Пока фильтр не построен, всегда возвращает {@code true}.
+     */
+    public boolean mightContain(String email) {
+        Bits bits = current;
+        if (!enabled || bits == null) {
+            return true;
+        }
+        if (bits.mightContain(email)) {
+            mightBePresent.increment();
+            return true;
+        }
+        absent.increment();
+        return false;
+    }
+
+    public void add(String email) {
+        Bits bits = current;
+        if (bits != null) {
+            bits.put(email);
+        }
+        Bits next = building;
+        if (next != null) {
+            next.put(email);
+        }
+    }
+
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${user-service.email-bloom.rebuild-interval:PT1H}",
+            fixedDelayString = "${user-service.email-bloom.rebuild-interval:PT1H}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        long userCount = userRepository.count();
+        Bits next = new Bits(Math.max(expectedInsertions, userCount * 2), targetFpp);
+        // Записи, сделанные во время сканирования, попадают и в новый фильтр
+        building = next;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                    emails.forEach(next::put);
+                }
+            });
+            current = next;
+            log.info("Email bloom filter rebuilt: {} emails, {} KiB, expected fpp {} in {} ms",
+                    next.insertions.get(), next.memoryBytes() / 1024, String.format("%.5f", next.expectedFpp()),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Email bloom filter rebuild failed, keeping the previous one", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    private double expectedFpp() {
+        Bits bits = current;
+        return bits != null ? bits.expectedFpp() : 1.0;
+    }
+
+    private double memoryBytes() {
+        Bits bits = current;
+        return bits != null ? bits.memoryBytes() : 0;
+    }
+
+    static final class Bits {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLong insertions = new AtomicLong();
+
+        Bits(long expectedInsertions, double fpp) {
+            long bits = (long) (-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.max(1, (bits + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = (long) wordCount * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        }
+
+        void put(String email) {
+            long hash = hash(email);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                if ((words.get(word) & mask) == 0) {
+                    words.getAndUpdate(word, value -> value | mask);
+                }
+            }
+            insertions.incrementAndGet();
+        }
+
+        boolean mightContain(String email) {
+            long hash = hash(email);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFpp() {
+            return Math.pow(1 - Math.exp(-(double) hashCount * insertions.get() / bitCount), hashCount);
+        }
+
+        long memoryBytes() {
+            return (long) words.length() * Long.BYTES;
+        }
+
+        // FNV-1a с финальным перемешиванием из MurmurHash3
+        private static long hash(String email) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : email.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
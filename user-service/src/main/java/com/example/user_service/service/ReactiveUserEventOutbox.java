@@ -0,0 +1,57 @@
+package com.example.user_service.service;
+
+import com.example.events.UserEvent;
+import com.example.user_service.model.OutboxRow;
+import com.example.user_service.repository.ReactiveOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Реактивный вариант {@link UserEventOutbox}: событие записывается в ту же outbox-таблицу.
+ * Подписываться нужно внутри транзакции ({@link org.springframework.transaction.reactive.TransactionalOperator}),
+ * изменяющей пользователя, - тогда событие фиксируется или откатывается вместе с ней.
+ * Отправкой в Kafka занимается {@link ReactiveUserEventOutboxRelay}.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserEventOutbox {
+
+    private final ReactiveOutboxRepository outboxRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveUserEventOutbox(ReactiveOutboxRepository outboxRepository,
+                                   R2dbcEntityTemplate entityTemplate,
+                                   ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.entityTemplate = entityTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public Mono<Void> enqueue(UserEvent event) {
+        return Mono.fromCallable(() -> toOutboxRow(event))
+                .flatMap(row -> outboxRepository.nextId().flatMap(id -> entityTemplate.insert(row.withId(id))))
+                .then();
+    }
+
+    // eventId назначается здесь и сохраняется в payload, как в UserEventOutbox
+    private OutboxRow toOutboxRow(UserEvent event) {
+        if (event.getEventId() == null) {
+            event.setEventId(UUID.randomUUID());
+        }
+        try {
+            String payload = objectMapper.writeValueAsString(event);
+            return new OutboxRow(null, event.getUserId(), event.getEventType().name(), payload, Instant.now(),
+                    null, null);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize user event: " + event, e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.user_service.service;
+
+import com.example.events.UserEvent;
+import com.example.user_service.model.OutboxRow;
+import com.example.user_service.repository.ReactiveOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Релей outbox для профиля reactive - то же, что {@link UserEventOutboxRelay}, на R2DBC
+ * и reactor-kafka: пачки в порядке id, события одного пользователя отправляются строго
+ * по одному, после сбоя отправки остальные события этого пользователя ждут следующего
+ * запуска. Строки с нечитаемым payload откладываются (failed_at). Строки, занятые другим
+ * экземпляром релея, пропускаются, как и пользователи, чьи более ранние события у него.
+ */
+@Component
+@Profile("reactive")
+@ConditionalOnProperty(name = "user-service.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveUserEventOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUserEventOutboxRelay.class);
+
+    private final ReactiveOutboxRepository outboxRepository;
+    private final ReactiveUserEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionalOperator transactionalOperator;
+    private final int batchSize;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter parkedCounter;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer batchTimer;
+
+    public ReactiveUserEventOutboxRelay(ReactiveOutboxRepository outboxRepository,
+                                        ReactiveUserEventPublisher eventPublisher,
+                                        ObjectMapper objectMapper,
+                                        TransactionalOperator transactionalOperator,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${user-service.outbox.relay.batch-size:100}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionalOperator = transactionalOperator;
+        this.batchSize = batchSize;
+
+        // Те же метрики, что у UserEventOutboxRelay
+        Gauge.builder("user.outbox.relay.lag", lagMillis, AtomicLong::get)
+                .description("Возраст самого старого неотправленного события на момент последнего опроса")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("user.outbox.relay.events")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("user.outbox.relay.events")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.parkedCounter = Counter.builder("user.outbox.relay.events")
+                .tag("outcome", "parked")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("user.outbox.relay.batch.size")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("user.outbox.relay.batch.duration")
+                .register(meterRegistry);
+    }
+
+    // Следующий запуск планировщик делает после завершения возвращённого Mono
+    @Scheduled(fixedDelayString = "${user-service.outbox.relay.poll-interval-ms:200}")
+    public Mono<Void> relay() {
+        return timedBatch()
+                .expand(processed -> processed == batchSize ? timedBatch() : Mono.empty())
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Outbox relay run failed, will retry: {}", error.toString());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Integer> timedBatch() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return transactionalOperator.transactional(relayBatch())
+                    .doFinally(signal -> batchTimer.record(Duration.ofNanos(System.nanoTime() - start)));
+        });
+    }
+
+    // Возвращает число обработанных строк (отправленных и отложенных), как UserEventOutboxRelay.relayBatch
+    Mono<Integer> relayBatch() {
+        return outboxRepository.findBatchForRelay(batchSize)
+                .collectList()
+                .flatMap(batch -> {
+                    if (batch.isEmpty()) {
+                        lagMillis.set(0);
+                        return Mono.just(0);
+                    }
+                    lagMillis.set(Duration.between(batch.get(0).createdAt(), Instant.now()).toMillis());
+                    batchSizeSummary.record(batch.size());
+                    return findUsersHeldElsewhere(batch).flatMap(heldElsewhere -> relay(batch, heldElsewhere));
+                });
+    }
+
+    private Mono<Integer> relay(List<OutboxRow> batch, Set<Long> heldElsewhere) {
+        // Строка с нечитаемым payload откладывается, чтобы не блокировать релей навсегда
+        List<OutboxRow> parked = new ArrayList<>();
+        Map<Long, List<Pending>> byUser = new LinkedHashMap<>();
+        for (OutboxRow row : batch) {
+            // Более раннее событие пользователя отправляет другой экземпляр: это ждёт его
+            if (heldElsewhere.contains(row.userId())) {
+                continue;
+            }
+            try {
+                UserEvent event = objectMapper.readValue(row.payload(), UserEvent.class);
+                byUser.computeIfAbsent(row.userId(), userId -> new ArrayList<>())
+                        .add(new Pending(row, event));
+            } catch (JsonProcessingException e) {
+                log.error("Corrupted outbox payload, parking event {}: {}", row.id(), e.toString());
+                parked.add(park(row, e.getOriginalMessage()));
+            }
+        }
+
+        Mono<List<Long>> delivered = Flux.fromIterable(byUser.values())
+                .flatMap(this::sendInOrder)
+                .collectList();
+        return outboxRepository.saveAll(parked)
+                .then(delivered)
+                .flatMap(ids -> outboxRepository.deleteAllById(ids)
+                        .doOnSuccess(done -> sentCounter.increment(ids.size()))
+                        .thenReturn(ids.size() + parked.size()));
+    }
+
+    private Mono<Set<Long>> findUsersHeldElsewhere(List<OutboxRow> batch) {
+        Set<Long> userIds = new HashSet<>();
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (OutboxRow row : batch) {
+            userIds.add(row.userId());
+            ids.add(row.id());
+        }
+        return outboxRepository.findUsersHeldElsewhere(userIds, ids.get(ids.size() - 1), ids)
+                .collect(Collectors.toSet());
+    }
+
+    // Следующее событие пользователя уходит только после подтверждения брокером предыдущего
+    private Flux<Long> sendInOrder(List<Pending> events) {
+        return Flux.fromIterable(events)
+                .concatMap(pending -> eventPublisher.publish(pending.event()).thenReturn(pending.row().id()))
+                .onErrorResume(error -> {
+                    log.warn("Failed to relay outbox events of user {}, will retry: {}",
+                            events.get(0).row().userId(), error.toString());
+                    failedCounter.increment();
+                    return Flux.empty();
+                });
+    }
+
+    private OutboxRow park(OutboxRow row, String failure) {
+        parkedCounter.increment();
+        return row.parked(Instant.now(),
+                failure != null && failure.length() > 1000 ? failure.substring(0, 1000) : failure);
+    }
+
+    private record Pending(OutboxRow row, UserEvent event) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.user_service.service;
+
+import com.example.events.UserEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отправка UserEvent через reactor-kafka для профиля reactive. Вызывается только релеем
+ * {@link ReactiveUserEventOutboxRelay}: события сначала попадают в outbox в транзакции
+ * изменения, поэтому доставка at-least-once, как у servlet-стека. Ошибка или таймаут
+ * отправки учитываются в метриках и завершают Mono с ошибкой - строка остаётся в outbox.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUserEventPublisher.class);
+    private static final String TOPIC = "user-events";
+
+    private final ReactiveKafkaProducerTemplate<String, UserEvent> kafkaTemplate;
+    private final Duration sendTimeout;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer sentTimer;
+    private final Timer failedTimer;
+
+    public ReactiveUserEventPublisher(ReactiveKafkaProducerTemplate<String, UserEvent> kafkaTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${user-service.reactive.events.send-timeout:10s}") Duration sendTimeout) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.sendTimeout = sendTimeout;
+        // Те же метрики, что у UserEventProducer, чтобы стеки сравнивались на одних графиках
+        this.sentCounter = Counter.builder("user.events.produced")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("user.events.produced")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.sentTimer = Timer.builder("user.events.send")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.failedTimer = Timer.builder("user.events.send")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+    }
+
+    // Продюсер reactor-kafka создаётся лениво: без прогрева первые запросы ждут подключения
+    // и метаданных топика, а под нагрузкой упираются в таймаут клиента
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        kafkaTemplate.partitionsFromProducerFor(TOPIC)
+                .collectList()
+                .timeout(sendTimeout)
+                .subscribe(
+                        partitions -> log.info("Kafka producer ready, {} partitions in {}", partitions.size(), TOPIC),
+                        error -> log.warn("Kafka producer warm-up failed: {}", error.toString()));
+    }
+
+    // Ключ по userId, как у UserEventProducer: порядок событий одного пользователя сохраняется
+    public Mono<Void> publish(UserEvent event) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return kafkaTemplate.send(TOPIC, String.valueOf(event.getUserId()), event)
+                    .timeout(sendTimeout)
+                    .doOnSuccess(result -> {
+                        sentTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        sentCounter.increment();
+                    })
+                    .doOnError(error -> {
+                        failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        failedCounter.increment();
+                        log.warn("Failed to send user event {}: {}", event, error.toString());
+                    })
+                    .then()
+                    // Завершение приходит в сетевом потоке продюсера: рендеринг ответа там задержал бы
+                    // остальные отправки, поэтому продолжаем на общем планировщике
+                    .publishOn(Schedulers.parallel());
+        });
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.user_service.service;
+
+import com.example.events.UserEvent;
+import com.example.user_service.dto.BulkUserImportResponse;
+import com.example.user_service.dto.UserRequest;
+import com.example.user_service.dto.UserResponse;
+import com.example.user_service.model.UserRow;
+import com.example.user_service.repository.ReactiveUserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Реактивный вариант {@link UserService} и {@link UserBulkImportService} для профиля reactive
+ * (WebFlux + R2DBC). Контракт /api/users и HAL-ответы те же; базовый URI ссылок передаёт
+ * контроллер, так как RequestContextHolder в WebFlux недоступен. События записываются
+ * в outbox ({@link ReactiveUserEventOutbox}) в той же транзакции, что и изменение.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUserService.class);
+
+    private final ReactiveUserRepository userRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final TransactionalOperator transactionalOperator;
+    private final ReactiveUserEventOutbox eventOutbox;
+    private final UserLinkFactory userLinkFactory;
+    private final Validator validator;
+
+    @Value("${user-service.pagination.default-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${user-service.pagination.max-size:100}")
+    private int maxPageSize = 100;
+
+    @Value("${user-service.bulk.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${user-service.bulk.max-size:50000}")
+    private int maxBulkSize = 50000;
+
+    public ReactiveUserService(ReactiveUserRepository userRepository,
+                               R2dbcEntityTemplate entityTemplate,
+                               TransactionalOperator transactionalOperator,
+                               ReactiveUserEventOutbox eventOutbox,
+                               UserLinkFactory userLinkFactory,
+                               Validator validator) {
+        this.userRepository = userRepository;
+        this.entityTemplate = entityTemplate;
+        this.transactionalOperator = transactionalOperator;
+        this.eventOutbox = eventOutbox;
+        this.userLinkFactory = userLinkFactory;
+        this.validator = validator;
+    }
+
+    public Mono<EntityModel<UserResponse>> createUser(UserRequest userRequest, String baseUri) {
+        Mono<UserRow> created = userRepository.existsByEmail(userRequest.getEmail())
+                .flatMap(exists -> exists
+                        ? Mono.<UserRow>error(new RuntimeException("Email already exists: " + userRequest.getEmail()))
+                        : insert(newRow(userRequest)))
+                .flatMap(saved -> eventOutbox.enqueue(event(UserEvent.EventType.USER_CREATED, saved))
+                        .thenReturn(saved));
+
+        return transactionalOperator.transactional(created)
+                .map(saved -> toModel(saved, baseUri));
+    }
+
+    public Mono<EntityModel<UserResponse>> getUserById(Long id, String baseUri) {
+        return findExisting(id).map(user -> toModel(user, baseUri));
+    }
+
+    public Mono<CollectionModel<EntityModel<UserResponse>>> getAllUsers(String cursor, Integer size, String baseUri) {
+        return Mono.defer(() -> {
+            int pageSize = resolvePageSize(size);
+            UserCursor position = cursor != null ? UserCursor.decode(cursor) : UserCursor.next(0L);
+            // Запрашиваем на одну запись больше, чтобы узнать, есть ли следующая страница
+            Pageable limit = PageRequest.ofSize(pageSize + 1);
+            boolean backwards = position.getDirection() == UserCursor.Direction.PREV;
+            Flux<UserRow> page = backwards
+                    ? userRepository.findByIdLessThanOrderByIdDesc(position.getId(), limit)
+                    : userRepository.findByIdGreaterThanOrderByIdAsc(position.getId(), limit);
+
+            return page.collectList().map(fetched -> {
+                List<UserRow> rows = new ArrayList<>(fetched);
+                boolean more = rows.size() > pageSize;
+                if (more) {
+                    rows.remove(pageSize);
+                }
+                if (backwards) {
+                    Collections.reverse(rows);
+                }
+                boolean hasNext = backwards || more;
+                boolean hasPrev = backwards ? more : cursor != null;
+                return toCollection(rows, cursor, pageSize, hasNext, hasPrev, baseUri);
+            });
+        });
+    }
+
+    public Flux<UserResponse> exportUsers() {
+        return userRepository.findAllByOrderByIdAsc().map(ReactiveUserService::toResponse);
+    }
+
+    public Mono<EntityModel<UserResponse>> updateUser(Long id, UserRequest userRequest, String baseUri) {
+        Mono<UserRow> updated = findExisting(id)
+                .flatMap(user -> {
+                    Mono<Boolean> taken = user.email().equals(userRequest.getEmail())
+                            ? Mono.just(false)
+                            : userRepository.existsByEmail(userRequest.getEmail());
+                    return taken.flatMap(exists -> exists
+                            ? Mono.<UserRow>error(new RuntimeException("Email already exists: " + userRequest.getEmail()))
+                            : update(new UserRow(id, userRequest.getName(), userRequest.getEmail(),
+                                    userRequest.getAge(), user.createdAt(), user.version())));
+                });
+
+        return transactionalOperator.transactional(updated)
+                .map(saved -> toModel(saved, baseUri));
+    }
+
+    public Mono<Void> deleteUser(Long id) {
+        Mono<Void> deleted = findExisting(id)
+                .flatMap(user -> userRepository.deleteById(id)
+                        .then(eventOutbox.enqueue(event(UserEvent.EventType.USER_DELETED, user))));
+
+        return transactionalOperator.transactional(deleted);
+    }
+
+    // Части по chunk-size строк, каждая в своей транзакции, как в UserBulkImportService
+    public Mono<BulkUserImportResponse> importUsers(List<UserRequest> requests) {
+        if (requests.size() > maxBulkSize) {
+            return Mono.error(new RuntimeException(
+                    "Too many users in one request: " + requests.size() + " (max " + maxBulkSize + ")"));
+        }
+
+        BulkUserImportResponse result = new BulkUserImportResponse(requests.size());
+        Set<String> seenEmails = new HashSet<>();
+        return Flux.range(0, (requests.size() + chunkSize - 1) / chunkSize)
+                .concatMap(chunk -> {
+                    int from = chunk * chunkSize;
+                    int to = Math.min(from + chunkSize, requests.size());
+                    return importChunk(requests, from, to, seenEmails, result);
+                })
+                .then(Mono.just(result));
+    }
+
+    private Mono<Void> importChunk(List<UserRequest> requests, int from, int to,
+                                   Set<String> seenEmails, BulkUserImportResponse result) {
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            UserRequest request = requests.get(i);
+            String violation = validate(request);
+            if (violation != null) {
+                result.addError(i, request != null ? request.getEmail() : null, violation);
+            } else if (!seenEmails.add(request.getEmail())) {
+                result.addError(i, request.getEmail(), "Duplicate email in request: " + request.getEmail());
+            } else {
+                acceptedIndexes.add(i);
+            }
+        }
+        if (acceptedIndexes.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<String> emails = acceptedIndexes.stream()
+                .map(i -> requests.get(i).getEmail())
+                .collect(Collectors.toList());
+        Mono<List<UserRow>> saved = userRepository.findByEmailIn(emails)
+                .map(UserRow::email)
+                .collect(Collectors.toSet())
+                .flatMap(existing -> Flux.fromIterable(acceptedIndexes)
+                        .filter(i -> !existing.contains(requests.get(i).getEmail()))
+                        .concatMap(i -> insertRow(newRow(requests.get(i)))
+                                .flatMap(user -> eventOutbox.enqueue(event(UserEvent.EventType.USER_CREATED, user))
+                                        .thenReturn(user)))
+                        .collectList()
+                        .doOnNext(rows -> {
+                            result.addCreated(rows.size());
+                            for (Integer i : acceptedIndexes) {
+                                String email = requests.get(i).getEmail();
+                                if (existing.contains(email)) {
+                                    result.addError(i, email, "Email already exists: " + email);
+                                }
+                            }
+                        }));
+
+        return transactionalOperator.transactional(saved)
+                .then()
+                .onErrorResume(DataAccessException.class, e -> {
+                    // Например, email занят параллельным запросом: unique-индекс откатил всю часть
+                    log.warn("Bulk import chunk [{}, {}) rolled back: {}", from, to, e.getMessage());
+                    String message = "Chunk rolled back: " + e.getMostSpecificCause().getMessage();
+                    for (Integer i : acceptedIndexes) {
+                        String email = requests.get(i).getEmail();
+                        result.addError(i, email, message);
+                        // Email так и не сохранён: та же строка дальше в запросе - не дубль, а новая попытка
+                        seenEmails.remove(email);
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<UserRow> findExisting(Long id) {
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("User not found with id: " + id)));
+    }
+
+    // Unique-индекс по email - окончательная проверка, в том числе при гонке двух запросов
+    private Mono<UserRow> insert(UserRow user) {
+        return insertRow(user)
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> new RuntimeException("Email already exists: " + user.email()));
+    }
+
+    private Mono<UserRow> insertRow(UserRow user) {
+        return userRepository.nextId().flatMap(id -> entityTemplate.insert(user.withId(id)));
+    }
+
+    private Mono<UserRow> update(UserRow user) {
+        return entityTemplate.update(user)
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> new RuntimeException("Email already exists: " + user.email()));
+    }
+
+    private String validate(UserRequest request) {
+        if (request == null) {
+            return "Empty user";
+        }
+        Set<ConstraintViolation<UserRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        if (size < 1) {
+            throw new RuntimeException("Page size must be positive: " + size);
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    private CollectionModel<EntityModel<UserResponse>> toCollection(List<UserRow> rows, String cursor, int pageSize,
+                                                                    boolean hasNext, boolean hasPrev, String baseUri) {
+        List<EntityModel<UserResponse>> users = new ArrayList<>(rows.size());
+        for (UserRow row : rows) {
+            users.add(toModel(row, baseUri));
+        }
+
+        List<Link> links = new ArrayList<>();
+        links.add(pageLink(baseUri, cursor, pageSize, IanaLinkRelations.SELF));
+        links.add(userLinkFactory.create(baseUri));
+        if (!rows.isEmpty()) {
+            if (hasNext) {
+                Long lastId = rows.get(rows.size() - 1).id();
+                links.add(pageLink(baseUri, UserCursor.next(lastId).encode(), pageSize, IanaLinkRelations.NEXT));
+            }
+            if (hasPrev) {
+                Long firstId = rows.get(0).id();
+                links.add(pageLink(baseUri, UserCursor.prev(firstId).encode(), pageSize, IanaLinkRelations.PREV));
+            }
+        }
+        return CollectionModel.of(users, links);
+    }
+
+    private Link pageLink(String baseUri, String cursor, int size, LinkRelation rel) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(userLinkFactory.collectionHref(baseUri));
+        if (cursor != null) {
+            builder.queryParam("cursor", cursor);
+        }
+        builder.queryParam("size", size);
+        return Link.of(builder.toUriString(), rel);
+    }
+
+    private EntityModel<UserResponse> toModel(UserRow user, String baseUri) {
+        EntityModel<UserResponse> entityModel = EntityModel.of(toResponse(user));
+        entityModel.add(userLinkFactory.self(baseUri, user.id()));
+        entityModel.add(userLinkFactory.update(baseUri, user.id()));
+        entityModel.add(userLinkFactory.delete(baseUri, user.id()));
+        entityModel.add(userLinkFactory.allUsers(baseUri));
+        return entityModel;
+    }
+
+    private static UserResponse toResponse(UserRow user) {
+        return new UserResponse(user.id(), user.name(), user.email(), user.age(), user.createdAt());
+    }
+
+    private static UserRow newRow(UserRequest request) {
+        return new UserRow(null, request.getName(), request.getEmail(), request.getAge(), LocalDateTime.now(), null);
+    }
+
+    // eventId назначает ReactiveUserEventOutbox: по нему notification-service отбрасывает повторы
+    private static UserEvent event(UserEvent.EventType type, UserRow user) {
+        return new UserEvent(type, user.id(), user.email(), user.name(), LocalDateTime.now());
+    }
+}
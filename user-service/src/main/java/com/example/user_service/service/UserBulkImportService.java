@@ -0,0 +1,165 @@
+package com.example.user_service.service;
+
+import com.example.events.UserEvent;
+import com.example.user_service.dto.BulkUserImportResponse;
+import com.example.user_service.dto.UserRequest;
+import com.example.user_service.model.User;
+import com.example.user_service.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Массовое создание пользователей. Запрос обрабатывается частями по chunk-size строк,
+ * каждая часть - в отдельной транзакции: одна выборка существующих email на часть,
+ * пакетные INSERT пользователей и outbox-событий. Ошибки отдельных строк попадают
+ * в отчёт и не прерывают импорт остальных.
+ */
+@Service
+@Profile("!reactive")
+public class UserBulkImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserBulkImportService.class);
+
+    private final UserRepository userRepository;
+    private final UserEventOutbox userEventOutbox;
+    private final EmailBloomFilter emailBloomFilter;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int chunkSize;
+    private final int maxSize;
+
+    public UserBulkImportService(UserRepository userRepository,
+                                 UserEventOutbox userEventOutbox,
+                                 EmailBloomFilter emailBloomFilter,
+                                 Validator validator,
+                                 TransactionTemplate transactionTemplate,
+                                 EntityManager entityManager,
+                                 @Value("${user-service.bulk.chunk-size:1000}") int chunkSize,
+                                 @Value("${user-service.bulk.max-size:50000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.userEventOutbox = userEventOutbox;
+        this.emailBloomFilter = emailBloomFilter;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+        this.maxSize = maxSize;
+    }
+
+    public BulkUserImportResponse importUsers(List<UserRequest> requests) {
+        if (requests.size() > maxSize) {
+            throw new RuntimeException("Too many users in one request: " + requests.size() + " (max " + maxSize + ")");
+        }
+
+        BulkUserImportResponse result = new BulkUserImportResponse(requests.size());
+        Set<String> seenEmails = new HashSet<>();
+        for (int from = 0; from < requests.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, requests.size());
+            importChunk(requests, from, to, seenEmails, result);
+        }
+        return result;
+    }
+
+    private void importChunk(List<UserRequest> requests, int from, int to,
+                             Set<String> seenEmails, BulkUserImportResponse result) {
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            UserRequest request = requests.get(i);
+            String violation = validate(request);
+            if (violation != null) {
+                result.addError(i, request != null ? request.getEmail() : null, violation);
+            } else if (!seenEmails.add(request.getEmail())) {
+                result.addError(i, request.getEmail(), "Duplicate email in request: " + request.getEmail());
+            } else {
+                acceptedIndexes.add(i);
+            }
+        }
+        if (acceptedIndexes.isEmpty()) {
+            return;
+        }
+
+        List<Integer> existingIndexes = new ArrayList<>();
+        try {
+            Integer created = transactionTemplate.execute(status -> {
+                existingIndexes.clear();
+                Set<String> existing = userRepository.findExistingEmails(acceptedIndexes.stream()
+                        .map(i -> requests.get(i).getEmail())
+                        .collect(Collectors.toList()));
+
+                List<User> users = new ArrayList<>(acceptedIndexes.size());
+                for (Integer i : acceptedIndexes) {
+                    UserRequest request = requests.get(i);
+                    if (existing.contains(request.getEmail())) {
+                        existingIndexes.add(i);
+                        continue;
+                    }
+                    User user = new User();
+                    user.setName(request.getName());
+                    user.setEmail(request.getEmail());
+                    user.setAge(request.getAge());
+                    users.add(user);
+                }
+
+                List<User> savedUsers = userRepository.saveAll(users);
+                List<UserEvent> events = new ArrayList<>(savedUsers.size());
+                LocalDateTime now = LocalDateTime.now();
+                for (User saved : savedUsers) {
+                    emailBloomFilter.add(saved.getEmail());
+                    events.add(new UserEvent(UserEvent.EventType.USER_CREATED, saved.getId(),
+                            saved.getEmail(), saved.getName(), now));
+                }
+                userEventOutbox.enqueueAll(events);
+
+                userRepository.flush();
+                entityManager.clear();
+                return savedUsers.size();
+            });
+
+            result.addCreated(created != null ? created : 0);
+            for (Integer i : existingIndexes) {
+                String email = requests.get(i).getEmail();
+                result.addError(i, email, "Email already exists: " + email);
+            }
+        } catch (DataAccessException e) {
+            // Например, email занят параллельным запросом: unique-индекс откатил всю часть
+            log.warn("Bulk import chunk [{}, {}) rolled back: {}", from, to, e.getMessage());
+            String message = "Chunk rolled back: " + e.getMostSpecificCause().getMessage();
+            for (Integer i : acceptedIndexes) {
+                String email = requests.get(i).getEmail();
+                result.addError(i, email, message);
+                // Email так и не сохранён: та же строка дальше в запросе - не дубль, а новая попытка
+                seenEmails.remove(email);
+            }
+        }
+    }
+
+    private String validate(UserRequest request) {
+        if (request == null) {
+            return "Empty user";
+        }
+        Set<ConstraintViolation<UserRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
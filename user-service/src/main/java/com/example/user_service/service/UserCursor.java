@@ -0,0 +1,67 @@
+package com.example.user_service.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор для keyset-пагинации списка пользователей.
+ * Кодирует направление чтения и id граничной записи в base64url.
+ */
+public final class UserCursor {
+
+    public enum Direction {
+        NEXT,
+        PREV
+    }
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Direction direction;
+    private final Long id;
+
+    private UserCursor(Direction direction, Long id) {
+        this.direction = direction;
+        this.id = id;
+    }
+
+    public static UserCursor next(Long afterId) {
+        return new UserCursor(Direction.NEXT, afterId);
+    }
+
+    public static UserCursor prev(Long beforeId) {
+        return new UserCursor(Direction.PREV, beforeId);
+    }
+
+    public static UserCursor decode(String token) {
+        try {
+            String raw = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            Direction direction = Direction.valueOf(raw.substring(0, separator));
+            Long id = Long.valueOf(raw.substring(separator + 1));
+            return new UserCursor(direction, id);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        return ENCODER.encodeToString((direction + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "UserCursor{" +
+                "direction=" + direction +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.user_service.service;
+
+import com.example.events.UserEvent;
+import com.example.user_service.model.OutboxEvent;
+import com.example.user_service.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Записывает события пользователей в outbox-таблицу. Вызывается только внутри
+ * транзакции, изменяющей пользователя, поэтому событие фиксируется или
+ * откатывается вместе с ней. Отправкой в Kafka занимается {@link UserEventOutboxRelay}.
+ */
+@Service
+@Profile("!reactive")
+public class UserEventOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public UserEventOutbox(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(UserEvent event) {
+        outboxEventRepository.save(toOutboxEvent(event));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(List<UserEvent> events) {
+        List<OutboxEvent> outboxEvents = new ArrayList<>(events.size());
+        for (UserEvent event : events) {
+            outboxEvents.add(toOutboxEvent(event));
+        }
+        outboxEventRepository.saveAll(outboxEvents);
+    }
+
+    // eventId назначается здесь и сохраняется в payload, поэтому повторная отправка
+    // релеем после сбоя приходит потребителю с тем же id
+    private OutboxEvent toOutboxEvent(UserEvent event) {
+        if (event.getEventId() == null) {
+            event.setEventId(UUID.randomUUID());
+        }
+        try {
+            String payload = objectMapper.writeValueAsString(event);
+            return new OutboxEvent(event.getUserId(), event.getEventType().name(), payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize user event: " + event, e);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.user_service.service;
+
+import com.example.events.UserEvent;
+import com.example.user_service.model.OutboxEvent;
+import com.example.user_service.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновый релей transactional outbox: пачками вычитывает события в порядке id,
+ * отправляет их в топик user-events и удаляет из таблицы отправленные. События
+ * одного пользователя отправляются строго по одному, поэтому не обгоняют друг
+ * друга даже при частичном сбое брокера. Строки с нечитаемым payload откладываются
+ * (failedAt) и не мешают отправке остальных. Несколько экземпляров релея делят
+ * outbox без ожидания друг друга: занятые строки пропускаются, а пользователи,
+ * чьи более ранние события у другого экземпляра, ждут следующего запуска.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "user-service.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class UserEventOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEventOutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final UserEventProducer userEventProducer;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter parkedCounter;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer batchTimer;
+
+    public UserEventOutboxRelay(OutboxEventRepository outboxEventRepository,
+                                UserEventProducer userEventProducer,
+                                ObjectMapper objectMapper,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${user-service.outbox.relay.batch-size:100}") int batchSize,
+                                @Value("${user-service.outbox.relay.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.userEventProducer = userEventProducer;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+
+        Gauge.builder("user.outbox.relay.lag", lagMillis, AtomicLong::get)
+                .description("Возраст самого старого неотправленного события на момент последнего опроса")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("user.outbox.relay.events")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("user.outbox.relay.events")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.parkedCounter = Counter.builder("user.outbox.relay.events")
+                .tag("outcome", "parked")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("user.outbox.relay.batch.size")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("user.outbox.relay.batch.duration")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${user-service.outbox.relay.poll-interval-ms:200}")
+    public void relay() {
+        int delivered;
+        do {
+            delivered = batchTimer.record(() -> transactionTemplate.execute(status -> relayBatch()));
+        } while (delivered == batchSize);
+    }
+
+    // Возвращает число обработанных строк (отправленных и отложенных); меньше batchSize -
+    // в outbox больше нечего отправлять, часть строк держит другой экземпляр релея
+    // или отправка части событий не удалась
+    int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findBatchForRelay(batchSize);
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Duration.between(batch.get(0).getCreatedAt(), Instant.now()).toMillis());
+        batchSizeSummary.record(batch.size());
+        Set<Long> heldElsewhere = findUsersHeldElsewhere(batch);
+
+        int parked = 0;
+        Map<Long, List<Pending>> byUser = new LinkedHashMap<>();
+        for (OutboxEvent outboxEvent : batch) {
+            // Более раннее событие пользователя отправляет другой экземпляр: это ждёт его
+            if (heldElsewhere.contains(outboxEvent.getUserId())) {
+                continue;
+            }
+            UserEvent event = readEvent(outboxEvent);
+            if (event == null) {
+                parked++;
+                continue;
+            }
+            byUser.computeIfAbsent(outboxEvent.getUserId(), userId -> new ArrayList<>())
+                    .add(new Pending(outboxEvent, event));
+        }
+
+        // Цепочка на пользователя: следующее событие уходит сразу после подтверждения брокером
+        // предыдущего, пользователи друг друга не ждут. Сбой обрывает цепочку: остальные
+        // события пользователя ждут следующего запуска - иначе повтор неудачного события
+        // пришёл бы в топик после более поздних
+        Set<OutboxEvent> sent = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> chains = new ArrayList<>(byUser.size());
+        for (List<Pending> events : byUser.values()) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (Pending pending : events) {
+                chain = chain
+                        .thenCompose(previous -> userEventProducer.sendUserEvent(pending.event())
+                                .orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS))
+                        .thenAccept(result -> sent.add(pending.outboxEvent()));
+            }
+            chains.add(chain.exceptionally(error -> {
+                log.warn("Failed to relay outbox events of user {}, will retry: {}",
+                        events.get(0).outboxEvent().getUserId(), error.toString());
+                failedCounter.increment();
+                return null;
+            }));
+        }
+        try {
+            CompletableFuture.allOf(chains.toArray(CompletableFuture<?>[]::new)).get();
+        } catch (InterruptedException e) {
+            // Остановка: удаляются уже подтверждённые, остальные уйдут при следующем запуске
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Outbox relay chain failed unexpectedly", e);
+        }
+
+        List<OutboxEvent> delivered = batch.stream().filter(sent::contains).toList();
+        outboxEventRepository.deleteAllInBatch(delivered);
+        sentCounter.increment(delivered.size());
+        return delivered.size() + parked;
+    }
+
+    private Set<Long> findUsersHeldElsewhere(List<OutboxEvent> batch) {
+        Set<Long> userIds = new HashSet<>();
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            userIds.add(outboxEvent.getUserId());
+            ids.add(outboxEvent.getId());
+        }
+        return new HashSet<>(outboxEventRepository.findUsersHeldElsewhere(userIds, ids.get(ids.size() - 1), ids));
+    }
+
+    // null - payload не читается; такая строка откладывается, чтобы не блокировать релей навсегда
+    private UserEvent readEvent(OutboxEvent outboxEvent) {
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), UserEvent.class);
+        } catch (JsonProcessingException e) {
+            log.error("Corrupted outbox payload, parking event {}: {}", outboxEvent, e.toString());
+            outboxEvent.setFailedAt(Instant.now());
+            String failure = e.getOriginalMessage();
+            outboxEvent.setFailure(failure != null && failure.length() > 1000 ? failure.substring(0, 1000) : failure);
+            parkedCounter.increment();
+            return null;
+        }
+    }
+
+    private record Pending(OutboxEvent outboxEvent, UserEvent event) {
+    }
+}
@@ -1,20 +1,63 @@
 package com.example.user_service.service;
 
-import com.example.user_service.event.UserEvent;
+import com.example.events.UserEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 @Service
+@Profile("!reactive")
 public class UserEventProducer {
 
-    private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+    private static final Logger log = LoggerFactory.getLogger(UserEventProducer.class);
     private static final String TOPIC = "user-events";
 
-    public UserEventProducer(KafkaTemplate<String, UserEvent> kafkaTemplate) {
+    private final KafkaTemplate<String, UserEvent> kafkaTemplate;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer sentTimer;
+    private final Timer failedTimer;
+
+    public UserEventProducer(KafkaTemplate<String, UserEvent> kafkaTemplate, MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
+        this.sentCounter = Counter.builder("user.events.produced")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("user.events.produced")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        // От вызова send до подтверждения брокером (acks=all), включая ожидание в батче linger.ms
+        this.sentTimer = Timer.builder("user.events.send")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.failedTimer = Timer.builder("user.events.send")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
     }
 
-    public void sendUserEvent(UserEvent event) {
-        kafkaTemplate.send(TOPIC, event);
+    // Ключ по userId: события одного пользователя попадают в одну партицию и читаются по порядку.
+    // Результат отправки учитывается в метриках здесь, повторы остаются за вызывающим
+    public CompletableFuture<SendResult<String, UserEvent>> sendUserEvent(UserEvent event) {
+        long start = System.nanoTime();
+        return kafkaTemplate.send(TOPIC, String.valueOf(event.getUserId()), event)
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        sentTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        sentCounter.increment();
+                    } else {
+                        failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        failedCounter.increment();
+                        log.warn("Failed to send user event {}: {}", event, error.toString());
+                    }
+                });
     }
-}
\ No newline at end of file
+}
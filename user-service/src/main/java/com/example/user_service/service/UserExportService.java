@@ -0,0 +1,66 @@
+package com.example.user_service.service;
+
+import com.example.user_service.dto.UserResponse;
+import com.example.user_service.model.User;
+import com.example.user_service.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка пользователей в формате NDJSON (одна JSON-запись на строку).
+ * Строки пишутся в ответ по мере чтения из БД, а контекст персистентности
+ * периодически очищается, поэтому потребление памяти не зависит от размера таблицы.
+ */
+@Service
+@Profile("!reactive")
+public class UserExportService {
+
+    private static final byte NEW_LINE = '\n';
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter writer;
+
+    public UserExportService(UserRepository userRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.writer = objectMapper.writerFor(UserResponse.class);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream out) {
+        long count = 0;
+        try (Stream<User> users = userRepository.streamAllOrderById()) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+                out.write(writer.writeValueAsBytes(toResponse(user)));
+                out.write(NEW_LINE);
+                count++;
+
+                if (count % UserRepository.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to export users", e);
+        }
+        return count;
+    }
+
+    private UserResponse toResponse(User user) {
+        return new UserResponse(user.getId(), user.getName(), user.getEmail(), user.getAge(), user.getCreatedAt());
+    }
+}
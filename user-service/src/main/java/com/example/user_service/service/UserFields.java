@@ -0,0 +1,79 @@
+package com.example.user_service.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Разобранный параметр fields (sparse fieldsets): какие колонки читать из БД и отдавать
+ * в ответе. links - не колонка, а признак, нужны ли ссылки у каждого пользователя.
+ */
+public final class UserFields {
+
+    public static final String LINKS = "links";
+
+    // Имена совпадают с атрибутами User и свойствами UserResponse; порядок - порядок полей в ответе
+    private static final List<String> COLUMNS = List.of("id", "name", "email", "age", "createdAt");
+
+    private final Set<String> columns;
+    private final boolean links;
+
+    private UserFields(Set<String> columns, boolean links) {
+        this.columns = Collections.unmodifiableSet(columns);
+        this.links = links;
+    }
+
+    // null - параметра нет, нужен полный ответ
+    public static UserFields parse(String fields) {
+        if (fields == null) {
+            return null;
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!name.isEmpty() && !name.equals(LINKS) && !COLUMNS.contains(name)) {
+                throw new RuntimeException("Unknown field: " + name + " (allowed: " + COLUMNS + " and " + LINKS + ")");
+            }
+            requested.add(name);
+        }
+
+        Set<String> columns = new LinkedHashSet<>();
+        for (String column : COLUMNS) {
+            if (requested.contains(column)) {
+                columns.add(column);
+            }
+        }
+        boolean links = requested.contains(LINKS);
+        if (columns.isEmpty() && !links) {
+            throw new RuntimeException("No fields requested: " + fields);
+        }
+        return new UserFields(columns, links);
+    }
+
+    public Set<String> getColumns() {
+        return columns;
+    }
+
+    public boolean hasLinks() {
+        return links;
+    }
+
+    // Каноническая форма для ссылок next/prev: следующая страница с тем же набором полей
+    public String encode() {
+        List<String> names = new ArrayList<>(columns);
+        if (links) {
+            names.add(LINKS);
+        }
+        return String.join(",", names);
+    }
+
+    @Override
+    public String toString() {
+        return "UserFields{" +
+                "columns=" + columns +
+                ", links=" + links +
+                '}';
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.user_service.service;
+
+import com.example.user_service.controller.UserController;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Строит HATEOAS-ссылки пользователей без {@code linkTo(methodOn(...))}.
+ * Шаблоны путей {@link UserController} разбираются один раз при создании бина,
+ * а на каждый вызов остаётся только подстановка id в строку. Базовый URI берётся
+ * так же, как в WebMvcLinkBuilder ({@code fromCurrentServletMapping}), и кэшируется
+ * в атрибуте запроса, поэтому ссылки совпадают с прежними, включая forwarded-заголовки.
+ */
+@Component
+public class UserLinkFactory {
+
+    private static final String BASE_URI_ATTRIBUTE = UserLinkFactory.class.getName() + ".BASE_URI";
+    private static final String ID_VARIABLE = "{id}";
+
+    private final String collectionPath;
+    private final PathTemplate selfTemplate;
+    private final PathTemplate updateTemplate;
+    private final PathTemplate deleteTemplate;
+
+    public UserLinkFactory() {
+        this.collectionPath = typeMapping();
+        this.selfTemplate = methodTemplate("getUserById");
+        this.updateTemplate = methodTemplate("updateUser");
+        this.deleteTemplate = methodTemplate("deleteUser");
+    }
+
+    public Link self(Long id) {
+        return self(baseUri(), id);
+    }
+
+    public Link update(Long id) {
+        return update(baseUri(), id);
+    }
+
+    public Link delete(Long id) {
+        return delete(baseUri(), id);
+    }
+
+    public Link allUsers() {
+        return allUsers(baseUri());
+    }
+
+    public Link create() {
+        return create(baseUri());
+    }
+
+    public Link collection(String rel) {
+        return collection(baseUri(), rel);
+    }
+
+    public Link collection(LinkRelation rel) {
+        return Link.of(collectionHref(), rel);
+    }
+
+    public String collectionHref() {
+        return collectionHref(baseUri());
+    }
+
+    public String searchHref() {
+        return collectionHref() + UserController.SEARCH_PATH;
+    }
+
+    // Варианты с явным базовым URI - для WebFlux, где RequestContextHolder недоступен
+    public Link self(String baseUri, Long id) {
+        return Link.of(selfTemplate.expand(baseUri, id), IanaLinkRelations.SELF);
+    }
+
+    public Link update(String baseUri, Long id) {
+        return Link.of(updateTemplate.expand(baseUri, id), "update");
+    }
+
+    public Link delete(String baseUri, Long id) {
+        return Link.of(deleteTemplate.expand(baseUri, id), "delete");
+    }
+
+    public Link allUsers(String baseUri) {
+        return collection(baseUri, "all-users");
+    }
+
+    public Link create(String baseUri) {
+        return collection(baseUri, "create");
+    }
+
+    public Link collection(String baseUri, String rel) {
+        return Link.of(collectionHref(baseUri), rel);
+    }
+
+    public String collectionHref(String baseUri) {
+        return baseUri + collectionPath;
+    }
+
+    private String baseUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return "";
+        }
+        String baseUri = (String) attributes.getAttribute(BASE_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = ServletUriComponentsBuilder.fromCurrentServletMapping().build().toUriString();
+            if (baseUri.endsWith("/")) {
+                baseUri = baseUri.substring(0, baseUri.length() - 1);
+            }
+            attributes.setAttribute(BASE_URI_ATTRIBUTE, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+        return baseUri;
+    }
+
+    private static String typeMapping() {
+        RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(UserController.class, RequestMapping.class);
+        return mapping != null && mapping.path().length > 0 ? mapping.path()[0] : "";
+    }
+
+    private PathTemplate methodTemplate(String methodName) {
+        Method method = Arrays.stream(UserController.class.getDeclaredMethods())
+                .filter(candidate -> candidate.getName().equals(methodName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No such handler: UserController." + methodName));
+        RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+        String path = mapping != null && mapping.path().length > 0 ? mapping.path()[0] : "";
+        return new PathTemplate(collectionPath + path);
+    }
+
+    private static final class PathTemplate {
+        private final String prefix;
+        private final String suffix;
+
+        PathTemplate(String template) {
+            int variable = template.indexOf(ID_VARIABLE);
+            if (variable < 0) {
+                throw new IllegalStateException("Mapping has no " + ID_VARIABLE + " variable: " + template);
+            }
+            this.prefix = template.substring(0, variable);
+            this.suffix = template.substring(variable + ID_VARIABLE.length());
+        }
+
+        String expand(String baseUri, Long id) {
+            return baseUri + prefix + id + suffix;
+        }
+    }
+}
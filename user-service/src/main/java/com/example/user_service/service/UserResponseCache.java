@@ -0,0 +1,143 @@
+package com.example.user_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Кэш уже сериализованных HAL-ответов GET /api/users/{id}. Ссылки в ответе абсолютные
+ * и зависят от адреса запроса, поэтому ответы одного id хранятся по "вариантам" (базовый URI,
+ * Accept, forwarded-заголовки): клиенты с разными вариантами не вытесняют друг друга.
+ * Вариантов на id не больше {@link #MAX_VARIANTS}, max-size ограничивает число ответов.
+ * <p>
+ * Наполнение условное: перед чтением из БД берётся {@link #generation}, а {@link #put}
+ * кладёт ответ, только если с тех пор не было {@link #invalidate} этого id. Иначе чтение,
+ * начатое до коммита изменения и закончившееся после сброса, положило бы в кэш старые
+ * данные (и старый ETag) до конца TTL.
+ */
+@Component
+@Profile("!reactive")
+public class UserResponseCache {
+
+    // Поколения хранятся по полосам (id -> полоса): память не растёт с числом пользователей,
+    // а коллизия только пропускает одно наполнение кэша
+    private static final int GENERATION_STRIPES = 1024;
+    // Защита от произвольных Host/forwarded-заголовков: самый старый вариант вытесняется
+    static final int MAX_VARIANTS = 4;
+
+    private final Cache<Long, Map<String, CachedResponse>> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserResponseCache(MeterRegistry meterRegistry,
+                             @Value("${user-service.response-cache.max-size:10000}") long maxSize,
+                             @Value("${user-service.response-cache.ttl:60s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize)
+                .weigher((Long id, Map<String, CachedResponse> variants) -> variants.size())
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.hits = Counter.builder("user.response.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("user.response.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("user.response.cache.size", cache, Cache::estimatedSize)
+                .description("Users with at least one cached response")
+                .register(meterRegistry);
+    }
+
+    public CachedResponse get(Long id, String variant) {
+        Map<String, CachedResponse> variants = cache.getIfPresent(id);
+        CachedResponse cached = variants != null ? variants.get(variant) : null;
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        return null;
+    }
+
+    public long generation(Long id) {
+        return generations.get(stripe(id));
+    }
+
+    // Проверка поколения и запись атомарны относительно invalidate(): обе выполняются
+    // под блокировкой ключа в compute. false - id сбрасывался после generation(), ответ не сохранён
+    public boolean put(Long id, long generation, CachedResponse response) {
+        boolean[] stored = new boolean[1];
+        cache.asMap().compute(id, (key, current) -> {
+            if (generations.get(stripe(key)) != generation) {
+                return current;
+            }
+            stored[0] = true;
+            Map<String, CachedResponse> variants = new LinkedHashMap<>();
+            if (current != null) {
+                variants.putAll(current);
+            }
+            variants.remove(response.variant());
+            variants.put(response.variant(), response);
+            if (variants.size() > MAX_VARIANTS) {
+                variants.remove(variants.keySet().iterator().next());
+            }
+            return Collections.unmodifiableMap(variants);
+        });
+        return stored[0];
+    }
+
+    // Сбрасываем сразу и ещё раз после коммита: второй сброс меняет поколение, и чтения,
+    // начатые до коммита, свой ответ в кэш уже не положат
+    public void invalidate(Long id) {
+        evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    private void evict(Long id) {
+        cache.asMap().compute(id, (key, current) -> {
+            generations.incrementAndGet(stripe(key));
+            return null;
+        });
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (GENERATION_STRIPES - 1);
+    }
+
+    public record CachedResponse(String variant, String contentType, String etag, byte[] body) {
+        public CachedResponse {
+            Objects.requireNonNull(variant);
+            Objects.requireNonNull(body);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.user_service.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор страниц поиска: (createdAt, id) последней записи страницы
+ * в base64url. Поиск листается только вперёд, фильтры передаются отдельно.
+ */
+public final class UserSearchCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    private UserSearchCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static UserSearchCursor after(LocalDateTime createdAt, Long id) {
+        return new UserSearchCursor(createdAt, id);
+    }
+
+    public static UserSearchCursor decode(String token) {
+        try {
+            String raw = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(':');
+            LocalDateTime createdAt = LocalDateTime.parse(raw.substring(0, separator));
+            Long id = Long.valueOf(raw.substring(separator + 1));
+            return new UserSearchCursor(createdAt, id);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        return ENCODER.encodeToString((createdAt + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "UserSearchCursor{" +
+                "createdAt=" + createdAt +
+                ", id=" + id +
+                '}';
+    }
+}
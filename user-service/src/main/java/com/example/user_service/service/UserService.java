@@ -1,39 +1,73 @@
 package com.example.user_service.service;
 
-import com.example.user_service.controller.UserController;
+import com.example.events.UserEvent;
+import com.example.user_service.config.ReplicaRoutingDataSource;
+import com.example.user_service.dto.SparseUserResponse;
 import com.example.user_service.dto.UserRequest;
 import com.example.user_service.dto.UserResponse;
-import com.example.user_service.event.UserEvent;
+import com.example.user_service.dto.UserSearchCriteria;
 import com.example.user_service.model.User;
 import com.example.user_service.repository.UserRepository;
+import com.example.user_service.repository.UserSpecifications;
+import jakarta.persistence.Tuple;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
-import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.hateoas.LinkRelation;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
-
 @Service
+@Profile("!reactive")
 @Transactional
 public class UserService {
 
     private final UserRepository userRepository;
-    private final UserEventProducer userEventProducer;
+    private final UserEventOutbox userEventOutbox;
+    private final UserResponseCache userResponseCache;
+    private final EmailBloomFilter emailBloomFilter;
+    private final UserLinkFactory userLinkFactory;
+
+    @Value("${user-service.pagination.default-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${user-service.pagination.max-size:100}")
+    private int maxPageSize = 100;
 
-    public UserService(UserRepository userRepository, UserEventProducer userEventProducer) {
+    public UserService(UserRepository userRepository,
+                       UserEventOutbox userEventOutbox,
+                       UserResponseCache userResponseCache,
+                       EmailBloomFilter emailBloomFilter,
+                       UserLinkFactory userLinkFactory) {
         this.userRepository = userRepository;
-        this.userEventProducer = userEventProducer;
+        this.userEventOutbox = userEventOutbox;
+        this.userResponseCache = userResponseCache;
+        this.emailBloomFilter = emailBloomFilter;
+        this.userLinkFactory = userLinkFactory;
     }
 
     public EntityModel<UserResponse> createUser(UserRequest userRequest) {
-        if (userRepository.existsByEmail(userRequest.getEmail())) {
+        if (emailExists(userRequest.getEmail())) {
             throw new RuntimeException("Email already exists: " + userRequest.getEmail());
         }
 
@@ -42,7 +76,7 @@ public class UserService {
         user.setEmail(userRequest.getEmail());
         user.setAge(userRequest.getAge());
 
-        User savedUser = userRepository.save(user);
+        User savedUser = saveWithUniqueEmail(user);
 
         UserEvent event = new UserEvent();
         event.setEventType(UserEvent.EventType.USER_CREATED);
@@ -50,12 +84,13 @@ public class UserService {
         event.setUserEmail(savedUser.getEmail());
         event.setUserName(savedUser.getName());
         event.setTimestamp(LocalDateTime.now());
-        userEventProducer.sendUserEvent(event);
+        userEventOutbox.enqueue(event);
 
         UserResponse response = convertToResponse(savedUser);
         return addLinksToResponse(response);
     }
 
+    @Transactional(readOnly = true)
     public EntityModel<UserResponse> getUserById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
@@ -63,26 +98,99 @@ public class UserService {
         return addLinksToResponse(response);
     }
 
-    public CollectionModel<EntityModel<UserResponse>> getAllUsers() {
-        List<EntityModel<UserResponse>> users = userRepository.findAll().stream()
-                .map(user -> {
-                    UserResponse response = convertToResponse(user);
-                    return addLinksToResponse(response);
-                })
-                .collect(Collectors.toList());
+    // Для If-None-Match: сравнить версию можно, не загружая пользователя и не строя ответ.
+    // Версия читается с primary, как и ответы для кэша: отставшая реплика подтвердила бы
+    // клиенту устаревший ETag ответом 304
+    @Transactional(readOnly = true)
+    public Optional<Long> findUserVersion(Long id) {
+        boolean pinned = ReplicaRoutingDataSource.isPinnedToPrimary();
+        ReplicaRoutingDataSource.pinToPrimary();
+        try {
+            return userRepository.findVersionById(id);
+        } finally {
+            if (!pinned) {
+                ReplicaRoutingDataSource.unpin();
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public CollectionModel<EntityModel<UserResponse>> getAllUsers(String cursor, Integer size) {
+        return page(cursor, size, null,
+                (afterId, limit) -> userRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(limit)),
+                (beforeId, limit) -> userRepository.findByIdLessThanOrderByIdDesc(beforeId, PageRequest.ofSize(limit)),
+                User::getId,
+                user -> addLinksToResponse(convertToResponse(user)));
+    }
+
+    // ?fields=: читаются только выбранные колонки (tuple-проекция), ссылки - только если запрошен links
+    @Transactional(readOnly = true)
+    public CollectionModel<EntityModel<SparseUserResponse>> getAllUsers(String cursor, Integer size, UserFields fields) {
+        Set<String> attributes = attributes(fields);
+        return page(cursor, size, fields,
+                (afterId, limit) -> userRepository.findAttributesByIdGreaterThan(afterId, attributes, limit),
+                (beforeId, limit) -> userRepository.findAttributesByIdLessThan(beforeId, attributes, limit),
+                tuple -> tuple.get("id", Long.class),
+                tuple -> toSparseModel(tuple, fields, null));
+    }
 
-        Link selfLink = linkTo(UserController.class).withSelfRel();
-        Link createLink = linkTo(methodOn(UserController.class).createUser(null)).withRel("create");
+    @Transactional(readOnly = true)
+    public EntityModel<SparseUserResponse> getUserById(Long id, UserFields fields) {
+        Set<String> attributes = attributes(fields);
+        attributes.add("version");
+        Tuple tuple = userRepository.findAttributesById(id, attributes)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        return toSparseModel(tuple, fields, tuple.get("version", Long.class));
+    }
+
+    // Фильтры - диапазоны по индексам users, страницы - keyset по (createdAt, id) без OFFSET
+    @Transactional(readOnly = true)
+    public CollectionModel<EntityModel<UserResponse>> searchUsers(UserSearchCriteria criteria, String cursor,
+                                                                  Integer size) {
+        validateCriteria(criteria);
+        int pageSize = resolvePageSize(size);
+        Specification<User> specification = UserSpecifications.matching(criteria);
+        if (cursor != null) {
+            UserSearchCursor position = UserSearchCursor.decode(cursor);
+            specification = specification.and(UserSpecifications.after(position.getCreatedAt(), position.getId()));
+        }
+
+        // На одну запись больше, чтобы узнать, есть ли следующая страница
+        List<User> rows = new ArrayList<>(userRepository.findBy(specification, query -> query
+                .sortBy(UserSpecifications.SEARCH_ORDER)
+                .limit(pageSize + 1)
+                .all()));
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows.remove(pageSize);
+        }
+
+        List<EntityModel<UserResponse>> users = rows.stream()
+                .map(user -> addLinksToResponse(convertToResponse(user)))
+                .collect(Collectors.toList());
 
-        return CollectionModel.of(users, selfLink, createLink);
+        List<Link> links = new ArrayList<>();
+        links.add(searchLink(criteria, cursor, pageSize, IanaLinkRelations.SELF));
+        if (hasNext) {
+            User last = rows.get(rows.size() - 1);
+            String next = UserSearchCursor.after(last.getCreatedAt(), last.getId()).encode();
+            links.add(searchLink(criteria, next, pageSize, IanaLinkRelations.NEXT));
+        }
+        return CollectionModel.of(users, links);
     }
 
     public EntityModel<UserResponse> updateUser(Long id, UserRequest userRequest) {
+        return updateUser(id, userRequest, null);
+    }
+
+    // expectedVersions - версии из If-Match; null - изменение без условия
+    public EntityModel<UserResponse> updateUser(Long id, UserRequest userRequest, Set<Long> expectedVersions) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        checkVersion(user, expectedVersions);
 
         if (!user.getEmail().equals(userRequest.getEmail()) &&
-                userRepository.existsByEmail(userRequest.getEmail())) {
+                emailExists(userRequest.getEmail())) {
             throw new RuntimeException("Email already exists: " + userRequest.getEmail());
         }
 
@@ -90,16 +198,23 @@ public class UserService {
         user.setEmail(userRequest.getEmail());
         user.setAge(userRequest.getAge());
 
-        User updatedUser = userRepository.save(user);
+        User updatedUser = saveWithUniqueEmail(user);
+        userResponseCache.invalidate(id);
         UserResponse response = convertToResponse(updatedUser);
         return addLinksToResponse(response);
     }
 
     public void deleteUser(Long id) {
+        deleteUser(id, null);
+    }
+
+    public void deleteUser(Long id, Set<Long> expectedVersions) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        checkVersion(user, expectedVersions);
 
         userRepository.deleteById(id);
+        userResponseCache.invalidate(id);
 
         UserEvent event = new UserEvent();
         event.setEventType(UserEvent.EventType.USER_DELETED);
@@ -107,7 +222,158 @@ public class UserService {
         event.setUserEmail(user.getEmail());
         event.setUserName(user.getName());
         event.setTimestamp(LocalDateTime.now());
-        userEventProducer.sendUserEvent(event);
+        userEventOutbox.enqueue(event);
+    }
+
+    // Сравнение с версией, прочитанной в этой же транзакции; гонку между проверкой и записью
+    // ловит уже сам @Version (UPDATE/DELETE ... WHERE version = ?)
+    private static void checkVersion(User user, Set<Long> expectedVersions) {
+        if (expectedVersions != null && !expectedVersions.contains(user.getVersion())) {
+            throw new UserVersionMismatchException(user.getId(), user.getVersion(), expectedVersions);
+        }
+    }
+
+    // Запрос в БД нужен, только если фильтр Блума не исключил email
+    private boolean emailExists(String email) {
+        if (!emailBloomFilter.mightContain(email)) {
+            return false;
+        }
+        boolean exists = userRepository.existsByEmail(email);
+        if (!exists) {
+            emailBloomFilter.recordFalsePositive();
+        }
+        return exists;
+    }
+
+    // Unique-индекс по email - окончательная проверка, в том числе при гонке двух запросов
+    private User saveWithUniqueEmail(User user) {
+        try {
+            User saved = userRepository.save(user);
+            userRepository.flush();
+            emailBloomFilter.add(saved.getEmail());
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Email already exists: " + user.getEmail());
+        }
+    }
+
+    // Keyset-страница строк любого вида: сущностей User или кортежей с выбранными колонками
+    private <R, M> CollectionModel<M> page(String cursor, Integer size, UserFields fields,
+                                           BiFunction<Long, Integer, List<R>> after,
+                                           BiFunction<Long, Integer, List<R>> before,
+                                           Function<R, Long> idOf,
+                                           Function<R, M> toModel) {
+        int pageSize = resolvePageSize(size);
+        UserCursor position = cursor != null ? UserCursor.decode(cursor) : UserCursor.next(0L);
+
+        // Запрашиваем на одну запись больше, чтобы узнать, есть ли следующая страница
+        List<R> rows;
+        boolean hasNext;
+        boolean hasPrev;
+        if (position.getDirection() == UserCursor.Direction.PREV) {
+            rows = new ArrayList<>(before.apply(position.getId(), pageSize + 1));
+            hasPrev = rows.size() > pageSize;
+            if (hasPrev) {
+                rows.remove(pageSize);
+            }
+            Collections.reverse(rows);
+            hasNext = true;
+        } else {
+            rows = new ArrayList<>(after.apply(position.getId(), pageSize + 1));
+            hasNext = rows.size() > pageSize;
+            if (hasNext) {
+                rows.remove(pageSize);
+            }
+            hasPrev = cursor != null;
+        }
+
+        List<M> users = rows.stream()
+                .map(toModel)
+                .collect(Collectors.toList());
+
+        List<Link> links = new ArrayList<>();
+        links.add(pageLink(cursor, pageSize, fields, IanaLinkRelations.SELF));
+        links.add(userLinkFactory.create());
+        if (!rows.isEmpty()) {
+            if (hasNext) {
+                Long lastId = idOf.apply(rows.get(rows.size() - 1));
+                links.add(pageLink(UserCursor.next(lastId).encode(), pageSize, fields, IanaLinkRelations.NEXT));
+            }
+            if (hasPrev) {
+                Long firstId = idOf.apply(rows.get(0));
+                links.add(pageLink(UserCursor.prev(firstId).encode(), pageSize, fields, IanaLinkRelations.PREV));
+            }
+        }
+
+        return CollectionModel.of(users, links);
+    }
+
+    // id читается всегда: по нему строятся ссылки и курсор, даже если в ответе его нет
+    private static Set<String> attributes(UserFields fields) {
+        Set<String> attributes = new LinkedHashSet<>();
+        attributes.add("id");
+        attributes.addAll(fields.getColumns());
+        return attributes;
+    }
+
+    private static void validateCriteria(UserSearchCriteria criteria) {
+        if (criteria.getMinAge() != null && criteria.getMaxAge() != null
+                && criteria.getMinAge() > criteria.getMaxAge()) {
+            throw new RuntimeException("minAge must not exceed maxAge: "
+                    + criteria.getMinAge() + " > " + criteria.getMaxAge());
+        }
+        if (criteria.getCreatedFrom() != null && criteria.getCreatedTo() != null
+                && criteria.getCreatedFrom().isAfter(criteria.getCreatedTo())) {
+            throw new RuntimeException("createdFrom must not be after createdTo: "
+                    + criteria.getCreatedFrom() + " > " + criteria.getCreatedTo());
+        }
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        if (size < 1) {
+            throw new RuntimeException("Page size must be positive: " + size);
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    private Link pageLink(String cursor, int size, UserFields fields, LinkRelation rel) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(userLinkFactory.collectionHref());
+        if (cursor != null) {
+            builder.queryParam("cursor", cursor);
+        }
+        builder.queryParam("size", size);
+        if (fields != null) {
+            builder.queryParam("fields", fields.encode());
+        }
+        return Link.of(builder.toUriString(), rel);
+    }
+
+    // Фильтры повторяются в ссылках, курсор хранит только позицию
+    private Link searchLink(UserSearchCriteria criteria, String cursor, int size, LinkRelation rel) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(userLinkFactory.searchHref());
+        if (criteria.getNamePrefix() != null) {
+            builder.queryParam("namePrefix", criteria.getNamePrefix());
+        }
+        if (criteria.getMinAge() != null) {
+            builder.queryParam("minAge", criteria.getMinAge());
+        }
+        if (criteria.getMaxAge() != null) {
+            builder.queryParam("maxAge", criteria.getMaxAge());
+        }
+        if (criteria.getCreatedFrom() != null) {
+            builder.queryParam("createdFrom", criteria.getCreatedFrom());
+        }
+        if (criteria.getCreatedTo() != null) {
+            builder.queryParam("createdTo", criteria.getCreatedTo());
+        }
+        if (cursor != null) {
+            builder.queryParam("cursor", cursor);
+        }
+        builder.queryParam("size", size);
+        return Link.of(builder.toUriString(), rel);
     }
 
     private UserResponse convertToResponse(User user) {
@@ -117,19 +383,34 @@ public class UserService {
         response.setEmail(user.getEmail());
         response.setAge(user.getAge());
         response.setCreatedAt(user.getCreatedAt());
+        response.setVersion(user.getVersion());
         return response;
     }
 
     private EntityModel<UserResponse> addLinksToResponse(UserResponse response) {
-        Long userId = response.getId();
-
         EntityModel<UserResponse> entityModel = EntityModel.of(response);
+        addUserLinks(entityModel, response.getId());
+        return entityModel;
+    }
 
-        entityModel.add(linkTo(methodOn(UserController.class).getUserById(userId)).withSelfRel());
-        entityModel.add(linkTo(methodOn(UserController.class).updateUser(userId, null)).withRel("update"));
-        entityModel.add(linkTo(methodOn(UserController.class).deleteUser(userId)).withRel("delete"));
-        entityModel.add(linkTo(UserController.class).withRel("all-users"));
+    EntityModel<SparseUserResponse> toSparseModel(Tuple tuple, UserFields fields, Long version) {
+        Long userId = tuple.get("id", Long.class);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String column : fields.getColumns()) {
+            values.put(column, tuple.get(column));
+        }
 
+        EntityModel<SparseUserResponse> entityModel = EntityModel.of(new SparseUserResponse(userId, values, version));
+        if (fields.hasLinks()) {
+            addUserLinks(entityModel, userId);
+        }
         return entityModel;
     }
+
+    private void addUserLinks(EntityModel<?> entityModel, Long userId) {
+        entityModel.add(userLinkFactory.self(userId));
+        entityModel.add(userLinkFactory.update(userId));
+        entityModel.add(userLinkFactory.delete(userId));
+        entityModel.add(userLinkFactory.allUsers());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.example.user_service.service;
+
+import java.io.Serial;
+import java.util.Set;
+
+/**
+ * Версия пользователя не совпала с ожидаемой из If-Match: клиент изменяет
+ * не ту версию, которую видел. Контроллер отвечает 412 Precondition Failed.
+ */
+public class UserVersionMismatchException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public UserVersionMismatchException(Long id, Long currentVersion, Set<Long> expectedVersions) {
+        super("User " + id + " has version " + currentVersion + ", expected one of " + expectedVersions);
+    }
+}
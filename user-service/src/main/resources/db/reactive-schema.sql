@@ -0,0 +1,24 @@
+-- Схема users для профиля reactive; совпадает с тем, что создаёт Hibernate для сущности User
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id         BIGINT       NOT NULL PRIMARY KEY,
+    name       VARCHAR(255) NOT NULL,
+    email      VARCHAR(255) NOT NULL UNIQUE,
+    age        INTEGER,
+    created_at TIMESTAMP(6),
+    version    BIGINT       DEFAULT 0 NOT NULL
+);
+
+-- Outbox событий пользователей; совпадает с сущностью OutboxEvent
+CREATE SEQUENCE IF NOT EXISTS user_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS user_outbox (
+    id         BIGINT        NOT NULL PRIMARY KEY,
+    user_id    BIGINT        NOT NULL,
+    event_type VARCHAR(32)   NOT NULL,
+    payload    VARCHAR(4000) NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    failed_at  TIMESTAMP(6) WITH TIME ZONE,
+    failure    VARCHAR(1000)
+);
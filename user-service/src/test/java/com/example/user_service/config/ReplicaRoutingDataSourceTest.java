@@ -0,0 +1,99 @@
+package com.example.user_service.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReplicaRoutingDataSource routing;
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.unpin();
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldBeBalancedAcrossReplicas() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", database("replica-1"));
+        replicas.put("replica-2", database("replica-2"));
+        routing = new ReplicaRoutingDataSource(database("primary"), replicas, Duration.ofSeconds(30), meterRegistry);
+
+        assertThat(read(true)).isEqualTo("replica-1");
+        assertThat(read(true)).isEqualTo("replica-2");
+        assertThat(read(true)).isEqualTo("replica-1");
+        assertThat(read(false)).isEqualTo("primary");
+        assertThat(reads("replica")).isEqualTo(3);
+    }
+
+    @Test
+    void unhealthyReplica_ShouldFallBackToPrimaryAndBeSkipped() {
+        AtomicInteger attempts = new AtomicInteger();
+        DataSource broken = new DriverManagerDataSource(
+                "jdbc:h2:mem:missing-" + UUID.randomUUID() + ";IFEXISTS=TRUE", "sa", "") {
+            @Override
+            public Connection getConnection() throws SQLException {
+                attempts.incrementAndGet();
+                return super.getConnection();
+            }
+        };
+        routing = new ReplicaRoutingDataSource(database("primary"), Map.of("replica-1", broken),
+                Duration.ofSeconds(30), meterRegistry);
+
+        assertThat(read(true)).isEqualTo("primary");
+        assertThat(read(true)).isEqualTo("primary");
+        assertThat(attempts).hasValue(1);
+        assertThat(reads("fallback")).isEqualTo(2);
+    }
+
+    @Test
+    void pinnedThread_ShouldReadFromPrimary() {
+        routing = new ReplicaRoutingDataSource(database("primary"), Map.of("replica-1", database("replica-1")),
+                Duration.ofSeconds(30), meterRegistry);
+
+        ReplicaRoutingDataSource.pinToPrimary();
+
+        assertThat(read(true)).isEqualTo("primary");
+        assertThat(reads("primary")).isEqualTo(1);
+    }
+
+    // Отдельная H2-база в памяти, которая знает своё имя
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE node (name VARCHAR(32))");
+        jdbc.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+
+    private String read(boolean readOnly) {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private double reads(String target) {
+        return meterRegistry.get("user.datasource.reads").tag("target", target).counter().count();
+    }
+}
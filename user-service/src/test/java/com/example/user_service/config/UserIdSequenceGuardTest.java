@@ -0,0 +1,37 @@
+package com.example.user_service.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserIdSequenceGuardTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final UserIdSequenceGuard guard = new UserIdSequenceGuard(jdbcTemplate);
+
+    @Test
+    void alignUserIdSequence_OnPostgreSql_ShouldMoveSequencePastExistingIds() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForList(UserIdSequenceGuard.ALIGN_USERS_SEQ, Long.class)).thenReturn(List.of(42L));
+
+        guard.alignUserIdSequence();
+
+        verify(jdbcTemplate).queryForList(UserIdSequenceGuard.ALIGN_USERS_SEQ, Long.class);
+    }
+
+    @Test
+    void alignUserIdSequence_OnOtherDatabase_ShouldNotTouchSequence() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        guard.alignUserIdSequence();
+
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(Long.class));
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.user_service.controller;
+
+import com.example.events.UserEvent;
+import com.example.user_service.dto.UserRequest;
+import com.example.user_service.model.OutboxRow;
+import com.example.user_service.repository.ReactiveOutboxRepository;
+import com.example.user_service.repository.ReactiveUserRepository;
+import com.example.user_service.service.ReactiveUserEventPublisher;
+import com.jayway.jsonpath.JsonPath;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-testdb;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        // Тип приложения задаём явно, как в application-reactive.properties
+        "spring.main.web-application-type=reactive",
+        "user-service.outbox.relay.enabled=true",
+        "user-service.outbox.relay.poll-interval-ms=50"
+})
+@AutoConfigureWebTestClient
+@ActiveProfiles({"test", "reactive"})
+class ReactiveUserControllerIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    @Autowired
+    private ReactiveOutboxRepository outboxRepository;
+
+    @Autowired
+    private R2dbcEntityTemplate entityTemplate;
+
+    @MockBean
+    private ReactiveUserEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll().block();
+        outboxRepository.deleteAll().block();
+        when(eventPublisher.publish(any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void createUser_ShouldReturnHalModelAndPublishEvent() {
+        webTestClient.post().uri("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRequest("Alice Smith", "alice@example.com", 25))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Alice Smith")
+                .jsonPath("$.email").isEqualTo("alice@example.com")
+                .jsonPath("$._links.self.href").value(href -> assertThat((String) href).matches(".*/api/users/\\d+"))
+                .jsonPath("$._links.update.href").exists()
+                .jsonPath("$._links.delete.href").exists()
+                .jsonPath("$._links.all-users.href").value(href -> assertThat((String) href).endsWith("/api/users"));
+
+        ArgumentCaptor<UserEvent> event = ArgumentCaptor.forClass(UserEvent.class);
+        verify(eventPublisher, timeout(5_000)).publish(event.capture());
+        assertThat(event.getValue().getEventType()).isEqualTo(UserEvent.EventType.USER_CREATED);
+        assertThat(event.getValue().getUserEmail()).isEqualTo("alice@example.com");
+    }
+
+    @Test
+    void createUser_ShouldReturnBadRequest_WhenEmailExists() {
+        create("Existing User", "existing@example.com");
+
+        webTestClient.post().uri("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRequest("New User", "existing@example.com", 25))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("Email already exists: existing@example.com");
+    }
+
+    @Test
+    void getUserById_ShouldReturnBadRequest_WhenMissing() {
+        webTestClient.get().uri("/api/users/{id}", 999_999L)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getAllUsers_ShouldPageWithCursorLinks() {
+        for (int i = 0; i < 3; i++) {
+            create("User " + i, "user" + i + "@example.com");
+        }
+
+        byte[] firstPage = webTestClient.get().uri("/api/users?size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$._embedded.userResponseList.length()").isEqualTo(2)
+                .jsonPath("$._links.next.href").exists()
+                .jsonPath("$._links.prev").doesNotExist()
+                .returnResult().getResponseBody();
+
+        String next = JsonPath.read(new String(firstPage), "$._links.next.href");
+        webTestClient.get().uri(next)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$._embedded.userResponseList.length()").isEqualTo(1)
+                .jsonPath("$._embedded.userResponseList[0].email").isEqualTo("user2@example.com")
+                .jsonPath("$._links.next").doesNotExist()
+                .jsonPath("$._links.prev.href").exists();
+    }
+
+    @Test
+    void updateAndDelete_ShouldChangeRowAndPublishDeletion() {
+        Long id = create("Before", "before@example.com");
+
+        webTestClient.put().uri("/api/users/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRequest("After", "after@example.com", 40))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("After")
+                .jsonPath("$.age").isEqualTo(40);
+
+        webTestClient.delete().uri("/api/users/{id}", id)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        assertThat(userRepository.existsById(id).block()).isFalse();
+        ArgumentCaptor<UserEvent> events = ArgumentCaptor.forClass(UserEvent.class);
+        verify(eventPublisher, timeout(5_000).times(2)).publish(events.capture());
+        assertThat(events.getAllValues()).extracting(UserEvent::getEventType)
+                .containsExactly(UserEvent.EventType.USER_CREATED, UserEvent.EventType.USER_DELETED);
+    }
+
+    // Событие записано в outbox вместе с пользователем: сбой брокера не теряет его, релей повторяет отправку
+    @Test
+    void createUser_SendFailed_ShouldKeepEventInOutboxAndRetry() {
+        when(eventPublisher.publish(any()))
+                .thenReturn(Mono.error(new KafkaException("Broker unavailable")))
+                .thenReturn(Mono.empty());
+
+        create("Retried", "retried@example.com");
+
+        ArgumentCaptor<UserEvent> attempts = ArgumentCaptor.forClass(UserEvent.class);
+        verify(eventPublisher, timeout(5_000).times(2)).publish(attempts.capture());
+        assertThat(attempts.getAllValues()).extracting(UserEvent::getEventId).doesNotContainNull().hasSize(2)
+                .containsOnly(attempts.getAllValues().get(0).getEventId());
+        awaitOutbox(List::isEmpty);
+    }
+
+    @Test
+    void corruptedOutboxRow_ShouldBeParkedWithoutBlockingOthers() {
+        entityTemplate.insert(new OutboxRow(outboxRepository.nextId().block(), 1L, "USER_CREATED", "{broken",
+                Instant.now(), null, null)).block();
+
+        create("After Corrupted", "after-corrupted@example.com");
+
+        verify(eventPublisher, timeout(5_000)).publish(any());
+        awaitOutbox(rows -> rows.size() == 1 && rows.get(0).failedAt() != null && rows.get(0).failure() != null);
+    }
+
+    @Test
+    void bulkAndExport_ShouldReportRowErrorsAndStreamNdjson() {
+        create("Existing", "taken@example.com");
+
+        webTestClient.post().uri("/api/users/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(
+                        new UserRequest("One", "one@example.com", 20),
+                        new UserRequest("Taken", "taken@example.com", 20),
+                        new UserRequest("", "bad", null)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.received").isEqualTo(3)
+                .jsonPath("$.created").isEqualTo(1)
+                .jsonPath("$.failed").isEqualTo(2);
+
+        List<String> lines = webTestClient.get().uri("/api/users/export")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(UserController.NDJSON_VALUE)
+                .expectBody(String.class).returnResult().getResponseBody()
+                .lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(1)).contains("\"email\":\"one@example.com\"");
+    }
+
+    private void awaitOutbox(Predicate<List<OutboxRow>> condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        List<OutboxRow> rows = outboxRepository.findAll().collectList().block();
+        while (!condition.test(rows) && System.nanoTime() < deadline) {
+            rows = Mono.delay(Duration.ofMillis(50)).then(outboxRepository.findAll().collectList()).block();
+        }
+        assertThat(condition.test(rows)).as("outbox rows: %s", rows).isTrue();
+    }
+
+    private Long create(String name, String email) {
+        byte[] body = webTestClient.post().uri("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRequest(name, email, 30))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().returnResult().getResponseBody();
+        return ((Number) JsonPath.read(new String(body), "$.id")).longValue();
+    }
+}
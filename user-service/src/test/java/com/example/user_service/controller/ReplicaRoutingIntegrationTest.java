@@ -0,0 +1,118 @@
+package com.example.user_service.controller;
+
+import com.example.user_service.dto.UserRequest;
+import com.example.user_service.repository.OutboxEventRepository;
+import com.example.user_service.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Primary и реплика - две отдельные H2-базы; реплика заполняется вручную,
+ * поэтому по содержимому ответа видно, откуда он прочитан.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "user-service.datasource.replicas.enabled=true",
+        "user-service.datasource.replicas.urls=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+        "user-service.datasource.read-your-writes.window=1m"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicaRoutingIntegrationTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @BeforeAll
+    static void createReplicaSchema() {
+        replica.execute("CREATE TABLE IF NOT EXISTS users (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                + "email VARCHAR(255) NOT NULL UNIQUE, age INTEGER, created_at TIMESTAMP(6), "
+                + "version BIGINT DEFAULT 0 NOT NULL)");
+    }
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        replica.update("DELETE FROM users");
+        replica.update("INSERT INTO users (id, name, email, age, created_at) "
+                + "VALUES (1000, 'Replica User', 'replica@example.com', 30, CURRENT_TIMESTAMP)");
+    }
+
+    @Test
+    void getAllUsers_ShouldReadFromReplica() throws Exception {
+        createUser();
+
+        mockMvc.perform(get("/api/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userResponseList.length()", is(1)))
+                .andExpect(jsonPath("$._embedded.userResponseList[0].email", is("replica@example.com")));
+    }
+
+    @Test
+    void getAllUsers_AfterOwnWrite_ShouldReadFromPrimary() throws Exception {
+        Cookie window = createUser();
+
+        mockMvc.perform(get("/api/users").cookie(window))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userResponseList.length()", is(1)))
+                .andExpect(jsonPath("$._embedded.userResponseList[0].email", is("primary@example.com")));
+    }
+
+    // ?fields= минует кэш ответов, но версию для 304 всё равно сверяем с primary, где пользователя 1000 нет
+    @Test
+    void getUserById_IfNoneMatch_ShouldCheckVersionOnPrimary() throws Exception {
+        mockMvc.perform(get("/api/users/{id}", 1000L)
+                        .param("fields", "id")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    private Cookie createUser() throws Exception {
+        UserRequest request = new UserRequest();
+        request.setName("Primary User");
+        request.setEmail("primary@example.com");
+        request.setAge(25);
+
+        return mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE_NAME))
+                .andReturn()
+                .getResponse()
+                .getCookie(ReadYourWritesFilter.COOKIE_NAME);
+    }
+}
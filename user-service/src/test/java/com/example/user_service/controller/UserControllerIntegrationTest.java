@@ -1,22 +1,31 @@
 package com.example.user_service.controller;
 
+import com.example.events.UserEvent;
 import com.example.user_service.dto.UserRequest;
 import com.example.user_service.model.User;
+import com.example.user_service.repository.OutboxEventRepository;
 import com.example.user_service.repository.UserRepository;
+import com.example.user_service.service.UserResponseCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -36,9 +45,17 @@ class UserControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
     @BeforeEach
     void setUp() {
         userRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        userResponseCache.invalidateAll();
     }
 
     @Test
@@ -100,6 +117,37 @@ class UserControllerIntegrationTest {
                 .andExpect(jsonPath("$._links.all-users.href", notNullValue()));
     }
 
+    @Test
+    void getUserById_ShouldServeCachedBodyUntilUpdate() throws Exception {
+        User user = new User();
+        user.setName("Cached User");
+        user.setEmail("cached@example.com");
+        user.setAge(30);
+        User savedUser = userRepository.save(user);
+
+        String first = mockMvc.perform(get("/api/users/{id}", savedUser.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Прямое изменение в БД не видно, пока запись не инвалидирована
+        savedUser.setName("Changed Directly");
+        userRepository.save(savedUser);
+
+        mockMvc.perform(get("/api/users/{id}", savedUser.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(first));
+
+        UserRequest updateRequest = new UserRequest("Updated Via API", "cached@example.com", 31);
+        mockMvc.perform(put("/api/users/{id}", savedUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateRequest)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/users/{id}", savedUser.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Updated Via API")));
+    }
+
     @Test
     void getAllUsers_ShouldReturnUsersListWithLinks() throws Exception {
         User user1 = new User();
@@ -125,6 +173,108 @@ class UserControllerIntegrationTest {
                 .andExpect(jsonPath("$._links.create.href", notNullValue()));
     }
 
+    @Test
+    void getAllUsers_ShouldFollowNextAndPrevCursors() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setName("User " + i);
+            user.setEmail("page" + i + "@example.com");
+            user.setAge(20 + i);
+            user.setCreatedAt(LocalDateTime.now());
+            userRepository.save(user);
+        }
+
+        String firstPage = mockMvc.perform(get("/api/users").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userResponseList.length()", is(2)))
+                .andExpect(jsonPath("$._embedded.userResponseList[0].name", is("User 1")))
+                .andExpect(jsonPath("$._links.next.href", notNullValue()))
+                .andExpect(jsonPath("$._links.prev").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+
+        String nextHref = JsonPath.read(firstPage, "$._links.next.href");
+        String secondPage = mockMvc.perform(get(nextHref))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userResponseList.length()", is(1)))
+                .andExpect(jsonPath("$._embedded.userResponseList[0].name", is("User 3")))
+                .andExpect(jsonPath("$._links.next").doesNotExist())
+                .andExpect(jsonPath("$._links.prev.href", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+
+        String prevHref = JsonPath.read(secondPage, "$._links.prev.href");
+        mockMvc.perform(get(prevHref))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userResponseList.length()", is(2)))
+                .andExpect(jsonPath("$._embedded.userResponseList[0].name", is("User 1")))
+                .andExpect(jsonPath("$._links.next.href", notNullValue()));
+    }
+
+    @Test
+    void getAllUsers_ShouldReturnBadRequest_WhenCursorIsInvalid() throws Exception {
+        mockMvc.perform(get("/api/users").param("cursor", "garbage"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportUsers_ShouldStreamOneJsonLinePerUser() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setName("Export " + i);
+            user.setEmail("export" + i + "@example.com");
+            user.setAge(30 + i);
+            user.setCreatedAt(LocalDateTime.now());
+            userRepository.save(user);
+        }
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(UserController.NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readTree(lines[0]).get("name").asText()).isEqualTo("Export 1");
+        assertThat(objectMapper.readTree(lines[2]).get("email").asText()).isEqualTo("export3@example.com");
+    }
+
+    @Test
+    void createUsers_ShouldImportValidRowsAndReportErrors() throws Exception {
+        User existingUser = new User();
+        existingUser.setName("Existing User");
+        existingUser.setEmail("taken@example.com");
+        existingUser.setAge(40);
+        userRepository.save(existingUser);
+
+        List<UserRequest> requests = List.of(
+                new UserRequest("Bulk 1", "bulk1@example.com", 21),
+                new UserRequest("Bulk 2", "taken@example.com", 22),
+                new UserRequest("Bulk 3", "invalid-email", 23),
+                new UserRequest("Bulk 4", "bulk1@example.com", 24),
+                new UserRequest("Bulk 5", "bulk5@example.com", 25));
+
+        mockMvc.perform(post("/api/users/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received", is(5)))
+                .andExpect(jsonPath("$.created", is(2)))
+                .andExpect(jsonPath("$.failed", is(3)))
+                .andExpect(jsonPath("$.errors[*].index", containsInAnyOrder(1, 2, 3)));
+
+        assertThat(userRepository.count()).isEqualTo(3);
+        assertThat(outboxEventRepository.count()).isEqualTo(2);
+        // У каждого события свой eventId, по нему notification-service отсекает повторы
+        assertThat(outboxEventRepository.findAll())
+                .extracting(outboxEvent -> objectMapper.readValue(outboxEvent.getPayload(), UserEvent.class).getEventId())
+                .doesNotContainNull()
+                .doesNotHaveDuplicates();
+    }
+
     @Test
     void updateUser_ShouldUpdateSuccessfully() throws Exception {
         User existingUser = new User();
@@ -149,6 +299,152 @@ class UserControllerIntegrationTest {
                 .andExpect(jsonPath("$.content.age", is(26)));
     }
 
+    @Test
+    void getUserById_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+        User savedUser = userRepository.save(new User(null, "Polled User", "polled@example.com", 30, null));
+
+        String etag = mockMvc.perform(get("/api/users/{id}", savedUser.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Второй запрос попадает в кэш ответов, третий (после изменения) - в контроллер
+        mockMvc.perform(get("/api/users/{id}", savedUser.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/api/users/{id}", savedUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserRequest("Renamed", "polled@example.com", 31))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        userResponseCache.invalidateAll();
+        mockMvc.perform(get("/api/users/{id}", savedUser.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.name", is("Renamed")));
+
+        mockMvc.perform(get("/api/users/{id}", savedUser.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getUserById_WithIfNoneMatch_ShouldReturnNotFound_WhenUserMissing() throws Exception {
+        mockMvc.perform(get("/api/users/{id}", 999_999L).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getUserById_WithFields_ShouldReturnOnlyRequestedFields() throws Exception {
+        User savedUser = userRepository.save(new User(null, "Sparse User", "sparse@example.com", 30, null));
+
+        mockMvc.perform(get("/api/users/{id}", savedUser.getId()).param("fields", "email,id"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(jsonPath("$.id", is(savedUser.getId().intValue())))
+                .andExpect(jsonPath("$.email", is("sparse@example.com")))
+                .andExpect(jsonPath("$.name").doesNotExist())
+                .andExpect(jsonPath("$.createdAt").doesNotExist())
+                .andExpect(jsonPath("$._links").doesNotExist());
+
+        mockMvc.perform(get("/api/users/{id}", savedUser.getId()).param("fields", "name,links"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Sparse User")))
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$._links.self.href", notNullValue()));
+
+        mockMvc.perform(get("/api/users/{id}", savedUser.getId()).param("fields", "id,password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllUsers_WithFields_ShouldKeepFieldsInPageLinks() throws Exception {
+        userRepository.save(new User(null, "User 1", "user1@example.com", 21, null));
+        userRepository.save(new User(null, "User 2", "user2@example.com", 22, null));
+
+        String next = JsonPath.read(mockMvc.perform(get("/api/users").param("size", "1").param("fields", "email"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userResponseList.length()", is(1)))
+                .andExpect(jsonPath("$._embedded.userResponseList[0].email", is("user1@example.com")))
+                .andExpect(jsonPath("$._embedded.userResponseList[0].name").doesNotExist())
+                .andExpect(jsonPath("$._embedded.userResponseList[0]._links").doesNotExist())
+                .andReturn().getResponse().getContentAsString(), "$._links.next.href");
+
+        assertThat(next).contains("fields=email");
+        mockMvc.perform(get(next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userResponseList[0].email", is("user2@example.com")))
+                .andExpect(jsonPath("$._embedded.userResponseList[0].age").doesNotExist());
+    }
+
+    @Test
+    void searchUsers_ShouldApplyAllFiltersAndFollowNextCursor() throws Exception {
+        LocalDateTime january = LocalDateTime.of(2024, 1, 1, 10, 0);
+        userRepository.save(new User(null, "Anna", "anna@example.com", 25, january));
+        userRepository.save(new User(null, "Andrew", "andrew@example.com", 30, january));
+        userRepository.save(new User(null, "Anton", "anton@example.com", 17, january.plusDays(5)));
+        userRepository.save(new User(null, "Boris", "boris@example.com", 30, january.plusDays(10)));
+        userRepository.save(new User(null, "Ann", "ann@example.com", 40, january.plusMonths(3)));
+
+        String firstPage = mockMvc.perform(get("/api/users/search")
+                        .param("namePrefix", "An")
+                        .param("minAge", "18")
+                        .param("createdFrom", "2024-01-01T00:00:00")
+                        .param("createdTo", "2024-03-01T00:00:00")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userResponseList.length()", is(1)))
+                .andExpect(jsonPath("$._embedded.userResponseList[0].name", is("Anna")))
+                .andExpect(jsonPath("$._links.next.href", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+
+        // Тот же createdAt - порядок по id
+        String nextHref = JsonPath.read(firstPage, "$._links.next.href");
+        assertThat(nextHref).contains("namePrefix=An", "minAge=18");
+        mockMvc.perform(get(nextHref))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userResponseList.length()", is(1)))
+                .andExpect(jsonPath("$._embedded.userResponseList[0].name", is("Andrew")))
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+    }
+
+    @Test
+    void searchUsers_ShouldReturnBadRequest_WhenAgeRangeIsInverted() throws Exception {
+        mockMvc.perform(get("/api/users/search").param("minAge", "40").param("maxAge", "20"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void updateUser_ShouldReturnPreconditionFailed_WhenIfMatchIsStale() throws Exception {
+        User savedUser = userRepository.save(new User(null, "Versioned", "versioned@example.com", 30, null));
+        UserRequest first = new UserRequest("First Writer", "versioned@example.com", 31);
+        UserRequest second = new UserRequest("Second Writer", "versioned@example.com", 32);
+
+        mockMvc.perform(put("/api/users/{id}", savedUser.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(first)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        mockMvc.perform(put("/api/users/{id}", savedUser.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(second)))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(delete("/api/users/{id}", savedUser.getId()).header(HttpHeaders.IF_MATCH, "W/\"1\""))
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(userRepository.findById(savedUser.getId()))
+                .hasValueSatisfying(user -> assertThat(user.getName()).isEqualTo("First Writer"));
+
+        mockMvc.perform(delete("/api/users/{id}", savedUser.getId()).header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isNoContent());
+    }
+
     @Test
     void deleteUser_ShouldReturnNoContent() throws Exception {
         User user = new User();
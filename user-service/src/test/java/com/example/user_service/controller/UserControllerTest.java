@@ -2,6 +2,9 @@ package com.example.user_service.controller;
 
 import com.example.user_service.dto.UserRequest;
 import com.example.user_service.dto.UserResponse;
+import com.example.user_service.service.UserBulkImportService;
+import com.example.user_service.service.UserExportService;
+import com.example.user_service.service.UserResponseCache;
 import com.example.user_service.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -35,6 +38,15 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserExportService userExportService;
+
+    @MockBean
+    private UserBulkImportService userBulkImportService;
+
+    @MockBean
+    private UserResponseCache userResponseCache;
+
     private UserRequest validUserRequest;
     private UserResponse userResponse;
 
@@ -83,23 +95,23 @@ class UserControllerTest {
 
     @Test
     void deleteUser_ShouldReturnNoContent() throws Exception {
-        doNothing().when(userService).deleteUser(1L);
+        doNothing().when(userService).deleteUser(1L, null);
 
         mockMvc.perform(delete("/api/users/{id}", 1L))
                 .andExpect(status().isNoContent());
 
-        verify(userService, times(1)).deleteUser(1L);
+        verify(userService, times(1)).deleteUser(1L, null);
     }
 
     @Test
     void deleteUser_WithNonExistingId_ShouldReturnBadRequest() throws Exception {
         doThrow(new RuntimeException("User not found with id: 999"))
-                .when(userService).deleteUser(999L);
+                .when(userService).deleteUser(999L, null);
 
         mockMvc.perform(delete("/api/users/{id}", 999L))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string("User not found with id: 999"));
 
-        verify(userService, times(1)).deleteUser(999L);
+        verify(userService, times(1)).deleteUser(999L, null);
     }
 }
\ No newline at end of file
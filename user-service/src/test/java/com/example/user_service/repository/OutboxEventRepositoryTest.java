@@ -0,0 +1,73 @@
+package com.example.user_service.repository;
+
+import com.example.user_service.model.OutboxEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Два экземпляра релея одновременно: второй не ждёт строк, заблокированных первым,
+ * и не берёт событий пользователя, чьё более раннее событие у первого.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:outbox-relay;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class OutboxEventRepositoryTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void findBatchForRelay_RowsLockedByAnotherRelay_ShouldSkipThemAndReportTheirUsers() throws Exception {
+        OutboxEvent first = outboxEventRepository.save(new OutboxEvent(1L, "USER_CREATED", "{}"));
+        OutboxEvent second = outboxEventRepository.save(new OutboxEvent(2L, "USER_CREATED", "{}"));
+        OutboxEvent laterOfFirstUser = outboxEventRepository.save(new OutboxEvent(1L, "USER_DELETED", "{}"));
+        OutboxEvent third = outboxEventRepository.save(new OutboxEvent(3L, "USER_CREATED", "{}"));
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<OutboxEvent>> firstRelay = CompletableFuture.supplyAsync(() ->
+                transactionTemplate.execute(status -> {
+                    List<OutboxEvent> batch = outboxEventRepository.findBatchForRelay(2);
+                    locked.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return batch;
+                }));
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<OutboxEvent> batch = outboxEventRepository.findBatchForRelay(10);
+                assertThat(batch).containsExactly(laterOfFirstUser, third);
+
+                List<Long> heldElsewhere = outboxEventRepository.findUsersHeldElsewhere(List.of(1L, 3L),
+                        third.getId(), List.of(laterOfFirstUser.getId(), third.getId()));
+                assertThat(heldElsewhere).containsExactly(1L);
+            });
+        } finally {
+            release.countDown();
+        }
+        assertThat(firstRelay.get(10, TimeUnit.SECONDS)).containsExactly(first, second);
+    }
+}
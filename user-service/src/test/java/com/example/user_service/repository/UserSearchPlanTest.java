@@ -0,0 +1,124 @@
+package com.example.user_service.repository;
+
+import com.example.user_service.dto.UserSearchCriteria;
+import com.example.user_service.model.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.Serial;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Планы запросов поиска в H2: каждый фильтр читает свой индекс, а не всю таблицу.
+ * SQL берётся у Hibernate, значения фильтров в нём - литералы (value_handling_mode=inline),
+ * чтобы EXPLAIN видел те же границы диапазонов, что и выполнение с параметрами.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:search-plan;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.user_service.repository.UserSearchPlanTest$CapturedSql"
+})
+@ActiveProfiles("test")
+class UserSearchPlanTest {
+
+    private static final int USERS = 1_000;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        if (userRepository.count() == 0) {
+            List<User> users = new ArrayList<>(USERS);
+            for (int i = 0; i < USERS; i++) {
+                users.add(new User(null, "User " + i, "plan" + i + "@example.com", 18 + i % 60,
+                        START.plusHours(i)));
+            }
+            userRepository.saveAll(users);
+            // Статистика селективности для оптимизатора H2
+            jdbcTemplate.execute("ANALYZE");
+        }
+    }
+
+    @Test
+    void namePrefix_ShouldUseNameIndex() {
+        String plan = plan(criteria("User 12", null, null, null, null));
+
+        assertThat(plan).contains("IDX_USERS_NAME").doesNotContain("tableScan");
+    }
+
+    @Test
+    void ageRange_ShouldUseAgeIndex() {
+        String plan = plan(criteria(null, 30, 31, null, null));
+
+        assertThat(plan).contains("IDX_USERS_AGE").doesNotContain("tableScan");
+    }
+
+    @Test
+    void createdAtRange_ShouldUseCreatedAtIdIndex() {
+        String plan = plan(criteria(null, null, null, START.plusDays(3), START.plusDays(4)));
+
+        assertThat(plan).contains("IDX_USERS_CREATED_AT_ID").doesNotContain("tableScan");
+    }
+
+    @Test
+    void nextPage_ShouldSeekInCreatedAtIdIndex() {
+        String plan = plan(UserSpecifications.matching(criteria(null, null, null, null, null))
+                .and(UserSpecifications.after(START.plusDays(20), 500L)));
+
+        assertThat(plan).contains("IDX_USERS_CREATED_AT_ID").doesNotContain("tableScan");
+    }
+
+    private String plan(UserSearchCriteria criteria) {
+        return plan(UserSpecifications.matching(criteria));
+    }
+
+    // Тот же запрос, что строит UserService.searchUsers; параметром остаётся только LIMIT
+    private String plan(Specification<User> specification) {
+        CapturedSql.STATEMENTS.clear();
+        userRepository.findBy(specification, query -> query
+                .sortBy(UserSpecifications.SEARCH_ORDER)
+                .limit(21)
+                .all());
+        String sql = CapturedSql.STATEMENTS.get(CapturedSql.STATEMENTS.size() - 1);
+        Object[] limits = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        Arrays.fill(limits, 21);
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, limits);
+    }
+
+    private static UserSearchCriteria criteria(String namePrefix, Integer minAge, Integer maxAge,
+                                               LocalDateTime createdFrom, LocalDateTime createdTo) {
+        return new UserSearchCriteria(namePrefix, minAge, maxAge, createdFrom, createdTo);
+    }
+
+    public static class CapturedSql implements StatementInspector {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
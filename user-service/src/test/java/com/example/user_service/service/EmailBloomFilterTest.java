@@ -0,0 +1,38 @@
+package com.example.user_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailBloomFilterTest {
+
+    @Test
+    void bits_ShouldNeverReturnFalseNegatives() {
+        EmailBloomFilter.Bits bits = new EmailBloomFilter.Bits(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bits.put("user" + i + "@example.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(bits.mightContain("user" + i + "@example.com")).isTrue();
+        }
+    }
+
+    @Test
+    void bits_ShouldKeepFalsePositiveRateNearTarget() {
+        EmailBloomFilter.Bits bits = new EmailBloomFilter.Bits(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bits.put("user" + i + "@example.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (bits.mightContain("other" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(300);
+        assertThat(bits.expectedFpp()).isLessThan(0.02);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.user_service.service;
+
+import com.example.user_service.dto.BulkUserImportResponse;
+import com.example.user_service.dto.UserRequest;
+import com.example.user_service.model.User;
+import com.example.user_service.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class UserBulkImportServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private final UserBulkImportService importService = new UserBulkImportService(userRepository,
+            mock(UserEventOutbox.class), mock(EmailBloomFilter.class),
+            Validation.buildDefaultValidatorFactory().getValidator(), transactionTemplate,
+            mock(EntityManager.class), 1, 100);
+
+    @Test
+    void importUsers_RolledBackChunk_ShouldNotMarkItsEmailsAsSeen() {
+        when(userRepository.findExistingEmails(anyList())).thenReturn(Set.of());
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId(1L));
+            return users;
+        });
+        when(transactionTemplate.execute(any()))
+                .thenThrow(new DataIntegrityViolationException("deadlock detected"))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+
+        BulkUserImportResponse result = importService.importUsers(List.of(
+                new UserRequest("First", "retry@example.com", 20),
+                new UserRequest("Second", "retry@example.com", 21)));
+
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement()
+                .satisfies(error -> {
+                    assertThat(error.getIndex()).isZero();
+                    assertThat(error.getMessage()).startsWith("Chunk rolled back");
+                });
+    }
+}
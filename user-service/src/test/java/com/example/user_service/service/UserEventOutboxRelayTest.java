@@ -0,0 +1,187 @@
+package com.example.user_service.service;
+
+import com.example.events.UserEvent;
+import com.example.user_service.model.OutboxEvent;
+import com.example.user_service.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserEventOutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private UserEventProducer userEventProducer;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private UserEventOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new UserEventOutboxRelay(outboxEventRepository, userEventProducer, objectMapper,
+                transactionTemplate, meterRegistry, 10, 1000);
+    }
+
+    @Test
+    void relayBatch_ShouldSendAndDeleteAllEvents() throws Exception {
+        List<OutboxEvent> batch = List.of(outboxEvent(1L, 10L), outboxEvent(2L, 11L));
+        when(outboxEventRepository.findBatchForRelay(anyInt())).thenReturn(batch);
+        when(userEventProducer.sendUserEvent(any(UserEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        int delivered = relay.relayBatch();
+
+        assertThat(delivered).isEqualTo(2);
+        verify(userEventProducer, times(2)).sendUserEvent(any(UserEvent.class));
+        verify(outboxEventRepository).deleteAllInBatch(batch);
+        assertThat(meterRegistry.get("user.outbox.relay.events").tag("outcome", "sent").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void relayBatch_ShouldKeepEventsAfterFirstFailure() throws Exception {
+        List<OutboxEvent> batch = List.of(outboxEvent(1L, 10L), outboxEvent(2L, 10L), outboxEvent(3L, 10L));
+        when(outboxEventRepository.findBatchForRelay(anyInt())).thenReturn(batch);
+        when(userEventProducer.sendUserEvent(any(UserEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        int delivered = relay.relayBatch();
+
+        assertThat(delivered).isEqualTo(1);
+        // Третье событие того же пользователя не отправляется раньше повтора второго
+        verify(userEventProducer, times(2)).sendUserEvent(any(UserEvent.class));
+        verify(outboxEventRepository).deleteAllInBatch(batch.subList(0, 1));
+        assertThat(meterRegistry.get("user.outbox.relay.events").tag("outcome", "failed").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void relayBatch_FailureForOneUser_ShouldNotHoldBackOtherUsers() throws Exception {
+        List<OutboxEvent> batch = List.of(outboxEvent(1L, 10L), outboxEvent(2L, 11L),
+                outboxEvent(3L, 10L), outboxEvent(4L, 11L));
+        when(outboxEventRepository.findBatchForRelay(anyInt())).thenReturn(batch);
+        when(userEventProducer.sendUserEvent(any(UserEvent.class))).thenAnswer(invocation -> {
+            UserEvent event = invocation.getArgument(0);
+            return event.getUserId() == 10L
+                    ? CompletableFuture.failedFuture(new RuntimeException("broker down"))
+                    : CompletableFuture.completedFuture(null);
+        });
+
+        int delivered = relay.relayBatch();
+
+        assertThat(delivered).isEqualTo(2);
+        verify(userEventProducer, times(3)).sendUserEvent(any(UserEvent.class));
+        verify(outboxEventRepository).deleteAllInBatch(List.of(batch.get(1), batch.get(3)));
+    }
+
+    @Test
+    void relayBatch_SlowUser_ShouldNotHoldBackLaterEventsOfOtherUsers() throws Exception {
+        List<OutboxEvent> batch = List.of(outboxEvent(1L, 10L), outboxEvent(2L, 11L),
+                outboxEvent(3L, 10L), outboxEvent(4L, 11L));
+        when(outboxEventRepository.findBatchForRelay(anyInt())).thenReturn(batch);
+        List<Long> sendOrder = new CopyOnWriteArrayList<>();
+        when(userEventProducer.sendUserEvent(any(UserEvent.class))).thenAnswer(invocation -> {
+            UserEvent event = invocation.getArgument(0);
+            sendOrder.add(event.getUserId());
+            // Брокер подтверждает события пользователя 10 с задержкой
+            return event.getUserId() == 10L
+                    ? CompletableFuture.supplyAsync(() -> null,
+                            CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS))
+                    : CompletableFuture.completedFuture(null);
+        });
+
+        int delivered = relay.relayBatch();
+
+        assertThat(delivered).isEqualTo(4);
+        // Второе событие пользователя 11 уходит, не дожидаясь первого события пользователя 10
+        assertThat(sendOrder).containsExactly(10L, 11L, 11L, 10L);
+        verify(outboxEventRepository).deleteAllInBatch(batch);
+    }
+
+    @Test
+    void relayBatch_UserHeldByAnotherRelay_ShouldSkipItsEvents() throws Exception {
+        List<OutboxEvent> batch = List.of(outboxEvent(5L, 10L), outboxEvent(6L, 11L));
+        when(outboxEventRepository.findBatchForRelay(anyInt())).thenReturn(batch);
+        when(outboxEventRepository.findUsersHeldElsewhere(anyCollection(), eq(6L), anyCollection()))
+                .thenReturn(List.of(10L));
+        when(userEventProducer.sendUserEvent(any(UserEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        int delivered = relay.relayBatch();
+
+        // Более раннее событие пользователя 10 у другого экземпляра: его строка ждёт следующего запуска
+        assertThat(delivered).isEqualTo(1);
+        verify(userEventProducer, times(1)).sendUserEvent(any(UserEvent.class));
+        verify(outboxEventRepository).deleteAllInBatch(List.of(batch.get(1)));
+    }
+
+    @Test
+    void relayBatch_WithCorruptPayload_ShouldParkRowAndSendTheRest() throws Exception {
+        OutboxEvent corrupt = outboxEvent(1L, 10L);
+        corrupt.setPayload("{not json");
+        List<OutboxEvent> batch = List.of(corrupt, outboxEvent(2L, 11L));
+        when(outboxEventRepository.findBatchForRelay(anyInt())).thenReturn(batch);
+        when(userEventProducer.sendUserEvent(any(UserEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        int processed = relay.relayBatch();
+
+        assertThat(processed).isEqualTo(2);
+        assertThat(corrupt.getFailedAt()).isNotNull();
+        assertThat(corrupt.getFailure()).isNotBlank();
+        verify(outboxEventRepository).deleteAllInBatch(List.of(batch.get(1)));
+        assertThat(meterRegistry.get("user.outbox.relay.events").tag("outcome", "parked").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void relayBatch_WithEmptyOutbox_ShouldResetLag() {
+        when(outboxEventRepository.findBatchForRelay(anyInt())).thenReturn(List.of());
+
+        int delivered = relay.relayBatch();
+
+        assertThat(delivered).isZero();
+        assertThat(meterRegistry.get("user.outbox.relay.lag").gauge().value()).isZero();
+        verifyNoInteractions(userEventProducer);
+    }
+
+    private OutboxEvent outboxEvent(Long id, Long userId) throws Exception {
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_CREATED, userId,
+                "user" + userId + "@example.com", "User " + userId, LocalDateTime.now());
+        OutboxEvent outboxEvent = new OutboxEvent(userId, event.getEventType().name(),
+                objectMapper.writeValueAsString(event));
+        outboxEvent.setId(id);
+        outboxEvent.setCreatedAt(Instant.now().minusSeconds(5));
+        return outboxEvent;
+    }
+}
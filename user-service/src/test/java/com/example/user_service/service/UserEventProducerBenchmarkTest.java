@@ -0,0 +1,107 @@
+package com.example.user_service.service;
+
+import com.example.events.UserEvent;
+import com.example.events.UserEventSerializer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение продюсера на настройках по умолчанию (без linger и сжатия) с настройками
+ * из application.properties: события в секунду и байты, ушедшие в сеть. Ключи в обоих
+ * прогонах одинаковые (userId), различаются только настройки продюсера.
+ * Запуск: mvn test -Dsurefire.excludedGroups= -Dgroups=benchmark
+ */
+@Tag("benchmark")
+@EmbeddedKafka(partitions = 3, topics = {"user-events"})
+class UserEventProducerBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEventProducerBenchmarkTest.class);
+    private static final int EVENTS = 100_000;
+    private static final String TOPIC = "user-events";
+
+    @Test
+    void compareDefaultAndTunedProducer(EmbeddedKafkaBroker broker) {
+        Map<String, Object> defaults = producerProps(broker);
+
+        Map<String, Object> tuned = producerProps(broker);
+        tuned.put(ProducerConfig.ACKS_CONFIG, "all");
+        tuned.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        tuned.put(ProducerConfig.LINGER_MS_CONFIG, 10);
+        tuned.put(ProducerConfig.BATCH_SIZE_CONFIG, 65536);
+        tuned.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+
+        Result before = measure(defaults);
+        Result after = measure(tuned);
+
+        log.info("Default producer: {} events/s, {} bytes sent", String.format("%.0f", before.rate()), before.bytes());
+        log.info("Tuned producer:   {} events/s, {} bytes sent", String.format("%.0f", after.rate()), after.bytes());
+        assertThat(after.bytes()).isLessThan(before.bytes());
+    }
+
+    private Result measure(Map<String, Object> props) {
+        DefaultKafkaProducerFactory<String, UserEvent> factory = new DefaultKafkaProducerFactory<>(props);
+        try {
+            KafkaTemplate<String, UserEvent> template = new KafkaTemplate<>(factory);
+            // Прогрев: метаданные топика и соединение с брокером
+            template.send(TOPIC, "0", event(0)).join();
+            double bytesBefore = outgoingBytes(template);
+
+            CompletableFuture<?>[] sends = new CompletableFuture<?>[EVENTS];
+            long start = System.nanoTime();
+            for (int i = 0; i < EVENTS; i++) {
+                UserEvent event = event(i);
+                sends[i] = template.send(TOPIC, String.valueOf(event.getUserId()), event);
+            }
+            CompletableFuture.allOf(sends).join();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            return new Result(EVENTS / seconds, (long) (outgoingBytes(template) - bytesBefore));
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    private double outgoingBytes(KafkaTemplate<String, UserEvent> template) {
+        for (Map.Entry<MetricName, ? extends Metric> metric : template.metrics().entrySet()) {
+            MetricName name = metric.getKey();
+            if ("outgoing-byte-total".equals(name.name()) && "producer-metrics".equals(name.group())) {
+                return (double) metric.getValue().metricValue();
+            }
+        }
+        throw new IllegalStateException("producer-metrics/outgoing-byte-total not found");
+    }
+
+    private Map<String, Object> producerProps(EmbeddedKafkaBroker broker) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, UserEventSerializer.class);
+        return props;
+    }
+
+    private UserEvent event(int i) {
+        long userId = i % 5000;
+        return new UserEvent(UserEvent.EventType.USER_CREATED, userId, "user" + userId + "@example.com",
+                "User " + userId, LocalDateTime.now());
+    }
+
+    private record Result(double rate, long bytes) {
+    }
+}
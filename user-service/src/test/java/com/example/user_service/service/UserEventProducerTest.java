@@ -0,0 +1,72 @@
+package com.example.user_service.service;
+
+import com.example.events.UserEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserEventProducerTest {
+
+    @Mock
+    private KafkaTemplate<String, UserEvent> kafkaTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private UserEventProducer producer;
+
+    @BeforeEach
+    void setUp() {
+        producer = new UserEventProducer(kafkaTemplate, meterRegistry);
+    }
+
+    @Test
+    void sendUserEvent_ShouldKeyByUserIdAndCountSent() {
+        UserEvent event = event(42L);
+        when(kafkaTemplate.send("user-events", "42", event))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new SendResult<>(new ProducerRecord<>("user-events", "42", event), null)));
+
+        producer.sendUserEvent(event).join();
+
+        verify(kafkaTemplate).send("user-events", "42", event);
+        assertThat(count("sent")).isEqualTo(1.0);
+        assertThat(count("failed")).isZero();
+        assertThat(meterRegistry.get("user.events.send").tag("outcome", "sent").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sendUserEvent_ShouldCountFailureAndPropagateIt() {
+        UserEvent event = event(7L);
+        when(kafkaTemplate.send("user-events", "7", event))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        CompletableFuture<SendResult<String, UserEvent>> result = producer.sendUserEvent(event);
+
+        assertThat(result).isCompletedExceptionally();
+        assertThat(count("failed")).isEqualTo(1.0);
+        assertThat(count("sent")).isZero();
+        assertThat(meterRegistry.get("user.events.send").tag("outcome", "failed").timer().count()).isEqualTo(1);
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("user.events.produced").tag("outcome", outcome).counter().count();
+    }
+
+    private UserEvent event(Long userId) {
+        return new UserEvent(UserEvent.EventType.USER_CREATED, userId, "user" + userId + "@example.com",
+                "User " + userId, LocalDateTime.now());
+    }
+}
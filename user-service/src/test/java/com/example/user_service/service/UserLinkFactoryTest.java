@@ -0,0 +1,64 @@
+package com.example.user_service.service;
+
+import com.example.user_service.controller.UserController;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+class UserLinkFactoryTest {
+
+    private final UserLinkFactory userLinkFactory = new UserLinkFactory();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void links_ShouldMatchWebMvcLinkBuilderOutsideRequest() {
+        assertSameLinks(42L);
+    }
+
+    @Test
+    void links_ShouldMatchWebMvcLinkBuilderForRequestBaseUri() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/gateway/api/users/7");
+        request.setScheme("https");
+        request.setServerName("users.example.com");
+        request.setServerPort(8443);
+        request.setContextPath("/gateway");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertSameLinks(7L);
+        assertThat(userLinkFactory.self(7L).getHref()).isEqualTo("https://users.example.com:8443/gateway/api/users/7");
+    }
+
+    private void assertSameLinks(Long id) {
+        assertSameLink(userLinkFactory.self(id),
+                linkTo(methodOn(UserController.class).getUserById(id, null, null)).withSelfRel());
+        assertSameLink(userLinkFactory.update(id),
+                linkTo(methodOn(UserController.class).updateUser(id, null, null)).withRel("update"));
+        assertSameLink(userLinkFactory.delete(id),
+                linkTo(methodOn(UserController.class).deleteUser(id, null)).withRel("delete"));
+        assertSameLink(userLinkFactory.allUsers(),
+                linkTo(UserController.class).withRel("all-users"));
+        assertSameLink(userLinkFactory.create(),
+                linkTo(methodOn(UserController.class).createUser(null)).withRel("create"));
+    }
+
+    // Аффордансы methodOn в HAL не сериализуются, поэтому сравниваем то, что попадает в ответ
+    // Необязательный {?fields} из getUserById WebMvcLinkBuilder оставляет шаблоном,
+    // фабрика отдаёт ссылку без него - сравниваем с раскрытым шаблоном
+    private void assertSameLink(Link actual, Link template) {
+        Link expected = template.expand();
+        assertThat(actual.getHref()).isEqualTo(expected.getHref());
+        assertThat(actual.getRel()).isEqualTo(expected.getRel());
+        assertThat(actual.isTemplated()).isEqualTo(expected.isTemplated());
+    }
+}
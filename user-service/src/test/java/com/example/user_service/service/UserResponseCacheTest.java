@@ -0,0 +1,128 @@
+package com.example.user_service.service;
+
+import com.example.user_service.service.UserResponseCache.CachedResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserResponseCacheTest {
+
+    private static final String VARIANT = "http://localhost:80|application/hal+json";
+
+    private final UserResponseCache cache =
+            new UserResponseCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+
+    // Чтение началось до коммита изменения, а закончилось после сброса в afterCompletion
+    @Test
+    void put_ReadOverlappingCommittedUpdate_ShouldNotCacheStaleBody() throws Exception {
+        CountDownLatch oldRowRead = new CountDownLatch(1);
+        CountDownLatch updateCommitted = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> reader = CompletableFuture.supplyAsync(() -> {
+            long generation = cache.generation(1L);
+            oldRowRead.countDown();
+            await(updateCommitted);
+            return cache.put(1L, generation, response("\"0\"", "old"));
+        });
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            await(oldRowRead);
+            updateInTransaction(1L);
+            updateCommitted.countDown();
+        });
+
+        writer.get(5, TimeUnit.SECONDS);
+        assertThat(reader.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(cache.get(1L, VARIANT)).isNull();
+    }
+
+    // Чтение успело положить ответ до коммита - его убирает сброс после коммита
+    @Test
+    void invalidate_AfterCommit_ShouldDropBodyCachedDuringTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate(1L);
+            assertThat(cache.put(1L, cache.generation(1L), response("\"0\"", "old"))).isTrue();
+
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.get(1L, VARIANT)).isNull();
+    }
+
+    @Test
+    void put_WithoutConcurrentUpdate_ShouldCacheBody() {
+        long generation = cache.generation(1L);
+        cache.invalidate(2L);
+
+        assertThat(cache.put(1L, generation, response("\"3\"", "fresh"))).isTrue();
+        assertThat(cache.get(1L, VARIANT).etag()).isEqualTo("\"3\"");
+    }
+
+    @Test
+    void put_DifferentVariants_ShouldKeepBothUntilInvalidated() {
+        String other = "https://api.example.com:443|application/hal+json";
+        cache.put(1L, cache.generation(1L), response("\"3\"", "local"));
+        cache.put(1L, cache.generation(1L), new CachedResponse(other, "application/hal+json", "\"3\"",
+                "public".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(new String(cache.get(1L, VARIANT).body(), StandardCharsets.UTF_8)).isEqualTo("local");
+        assertThat(new String(cache.get(1L, other).body(), StandardCharsets.UTF_8)).isEqualTo("public");
+
+        cache.invalidate(1L);
+        assertThat(cache.get(1L, VARIANT)).isNull();
+        assertThat(cache.get(1L, other)).isNull();
+    }
+
+    @Test
+    void put_TooManyVariants_ShouldEvictOldest() {
+        for (int i = 0; i <= UserResponseCache.MAX_VARIANTS; i++) {
+            cache.put(1L, cache.generation(1L), new CachedResponse("host-" + i, "application/hal+json", "\"0\"",
+                    new byte[0]));
+        }
+
+        assertThat(cache.get(1L, "host-0")).isNull();
+        assertThat(cache.get(1L, "host-" + UserResponseCache.MAX_VARIANTS)).isNotNull();
+    }
+
+    private void updateInTransaction(Long id) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate(id);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private static CachedResponse response(String etag, String body) {
+        return new CachedResponse(VARIANT, "application/hal+json", etag, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out waiting for the other thread");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
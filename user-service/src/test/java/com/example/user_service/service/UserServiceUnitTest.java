@@ -1,8 +1,8 @@
 package com.example.user_service.service;
 
+import com.example.events.UserEvent;
 import com.example.user_service.dto.UserRequest;
 import com.example.user_service.dto.UserResponse;
-import com.example.user_service.event.UserEvent;
 import com.example.user_service.model.User;
 import com.example.user_service.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,9 +10,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.hateoas.EntityModel;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.hateoas.IanaLinkRelations;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -23,6 +27,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,7 +37,16 @@ class UserServiceUnitTest {
     private UserRepository userRepository;
 
     @Mock
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private UserEventOutbox userEventOutbox;
+
+    @Mock
+    private UserResponseCache userResponseCache;
+
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
+
+    @Spy
+    private UserLinkFactory userLinkFactory = new UserLinkFactory();
 
     @InjectMocks
     private UserService userService;
@@ -57,6 +71,7 @@ class UserServiceUnitTest {
 
     @Test
     void createUser_ShouldReturnEntityModelWithLinks() {
+        when(emailBloomFilter.mightContain(anyString())).thenReturn(true);
         when(userRepository.existsByEmail(anyString())).thenReturn(false);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
 
@@ -69,7 +84,31 @@ class UserServiceUnitTest {
 
         verify(userRepository, times(1)).existsByEmail("john@example.com");
         verify(userRepository, times(1)).save(any(User.class));
-        verify(kafkaTemplate, times(1)).send(anyString(), any(UserEvent.class));
+        verify(userEventOutbox, times(1)).enqueue(any(UserEvent.class));
+    }
+
+    @Test
+    void createUser_WhenBloomFilterRulesEmailOut_ShouldSkipExistsQuery() {
+        when(emailBloomFilter.mightContain("john@example.com")).thenReturn(false);
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+
+        userService.createUser(testUserRequest);
+
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(userRepository, times(1)).flush();
+        verify(emailBloomFilter, times(1)).add("john@example.com");
+    }
+
+    @Test
+    void createUser_WhenUniqueConstraintFails_ShouldReportDuplicateEmail() {
+        when(emailBloomFilter.mightContain("john@example.com")).thenReturn(false);
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(userRepository).flush();
+
+        assertThatThrownBy(() -> userService.createUser(testUserRequest))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Email already exists: john@example.com");
+        verify(userEventOutbox, never()).enqueue(any(UserEvent.class));
     }
 
     @Test
@@ -86,15 +125,58 @@ class UserServiceUnitTest {
         user2.setEmail("user2@example.com");
         user2.setAge(30);
 
-        when(userRepository.findAll()).thenReturn(Arrays.asList(user1, user2));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(user1, user2));
 
-        var result = userService.getAllUsers();
+        var result = userService.getAllUsers(null, null);
 
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(2);
         assertThat(result.getLinks()).isNotEmpty();
+        assertThat(result.getLink(IanaLinkRelations.NEXT)).isEmpty();
+        assertThat(result.getLink(IanaLinkRelations.PREV)).isEmpty();
+
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void getAllUsers_WithMoreRowsThanPageSize_ShouldReturnNextLink() {
+        User user1 = new User();
+        user1.setId(1L);
+        user1.setName("User 1");
+        user1.setEmail("user1@example.com");
+
+        User user2 = new User();
+        user2.setId(2L);
+        user2.setName("User 2");
+        user2.setEmail("user2@example.com");
 
-        verify(userRepository, times(1)).findAll();
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.ofSize(2))))
+                .thenReturn(Arrays.asList(user1, user2));
+
+        var result = userService.getAllUsers(null, 1);
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getLink(IanaLinkRelations.NEXT)).isPresent();
+        assertThat(result.getLink(IanaLinkRelations.NEXT).get().getHref())
+                .contains("cursor=" + UserCursor.next(1L).encode());
+    }
+
+    @Test
+    void getAllUsers_ShouldCapPageSize() {
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        userService.getAllUsers(null, 100_000);
+
+        verify(userRepository).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.ofSize(101));
+    }
+
+    @Test
+    void getAllUsers_WithInvalidCursor_ShouldThrow() {
+        assertThatThrownBy(() -> userService.getAllUsers("not-a-cursor", null))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Invalid cursor");
     }
 
     @Test
@@ -115,6 +197,7 @@ class UserServiceUnitTest {
         verify(userRepository, times(1)).findById(1L);
         verify(userRepository, never()).existsByEmail(anyString());
         verify(userRepository, times(1)).save(any(User.class));
+        verify(userResponseCache, times(1)).invalidate(1L);
     }
 
     @Test
@@ -125,6 +208,7 @@ class UserServiceUnitTest {
         updateRequest.setAge(31);
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(emailBloomFilter.mightContain("newemail@example.com")).thenReturn(true);
         when(userRepository.existsByEmail("newemail@example.com")).thenReturn(false);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
 